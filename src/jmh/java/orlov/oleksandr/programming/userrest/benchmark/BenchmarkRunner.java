@@ -0,0 +1,53 @@
+package orlov.oleksandr.programming.userrest.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the selected benchmarks once per thread count (1, 2, 4, ... up to the number of cores) and writes
+ * the results of each run to {@code target/jmh/threads-<n>.json}, so they can be compared across releases.
+ * Accepts the usual JMH command line; an explicit {@code -t} runs only that thread count.
+ */
+public final class BenchmarkRunner {
+
+    private static final String RESULT_DIRECTORY = "target/jmh";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        new File(RESULT_DIRECTORY).mkdirs();
+
+        List<Integer> threadCounts = commandLineOptions.getThreads().hasValue()
+                ? List.of(commandLineOptions.getThreads().get())
+                : threadCounts(Runtime.getRuntime().availableProcessors());
+
+        for (int threads : threadCounts) {
+            new Runner(new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(RESULT_DIRECTORY + "/threads-" + threads + ".json")
+                    .build())
+                    .run();
+        }
+    }
+
+    private static List<Integer> threadCounts(int cores) {
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(cores);
+        return threadCounts;
+    }
+}
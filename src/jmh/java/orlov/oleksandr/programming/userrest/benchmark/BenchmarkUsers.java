@@ -0,0 +1,33 @@
+package orlov.oleksandr.programming.userrest.benchmark;
+
+import orlov.oleksandr.programming.userrest.model.User;
+
+import java.time.LocalDate;
+
+/**
+ * Deterministic test data shared by the benchmarks.
+ */
+final class BenchmarkUsers {
+
+    static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+
+    static final int BIRTH_DATE_DAYS = 50 * 365;
+
+    private BenchmarkUsers() {
+    }
+
+    static String email(int i) {
+        return "user" + i + "@example.com";
+    }
+
+    static User user(int i) {
+        return User.builder()
+                .email(email(i))
+                .firstName("First" + i % 1000)
+                .lastName("Last" + i % 5000)
+                .birthDate(FIRST_BIRTH_DATE.plusDays(i % BIRTH_DATE_DAYS))
+                .address(i % 200 + " Main Street")
+                .phoneNumber("+380" + (100000000 + i))
+                .build();
+    }
+}
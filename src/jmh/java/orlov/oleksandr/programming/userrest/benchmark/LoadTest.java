@@ -0,0 +1,162 @@
+package orlov.oleksandr.programming.userrest.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import orlov.oleksandr.programming.userrest.model.User;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Closed-loop HTTP load test against a running server, used to compare the platform-thread and
+ * virtual-thread request execution modes. Every client sends its next request as soon as the previous one
+ * completes: 80% one-week range queries and 20% partial updates, which block on the write-ahead log when
+ * the server runs with {@code user.persistence.fsync-policy=always}.
+ * <p>
+ * Arguments: {@code <baseUrl> [clients=1000] [durationSeconds=30] [users=10000]}.
+ */
+public final class LoadTest {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: LoadTest <baseUrl> [clients] [durationSeconds] [users]");
+            System.exit(1);
+        }
+        URI users = URI.create(args[0].replaceAll("/$", "") + "/api/users");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int userCount = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+
+        seed(httpClient, objectMapper, users, userCount);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<ClientResult>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            futures.add(executor.submit(() -> runClient(httpClient, objectMapper, users, userCount, deadline)));
+        }
+
+        List<long[]> latencies = new ArrayList<>();
+        long errors = 0;
+        for (Future<ClientResult> future : futures) {
+            ClientResult result = future.get();
+            latencies.add(result.latencies());
+            errors += result.errors();
+        }
+        executor.shutdown();
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("clients=%d duration=%ds requests=%d errors=%d throughput=%.0f req/s%n",
+                clients, durationSeconds, all.length, errors, all.length / (double) durationSeconds);
+        System.out.printf("latency ms: p50=%.1f p90=%.1f p99=%.1f max=%.1f%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 1.0));
+    }
+
+    private static void seed(HttpClient httpClient, ObjectMapper objectMapper, URI users, int userCount)
+            throws IOException, InterruptedException {
+        for (int from = 0; from < userCount; from += SEED_BATCH_SIZE) {
+            List<User> batch = IntStream.range(from, Math.min(from + SEED_BATCH_SIZE, userCount))
+                    .mapToObj(BenchmarkUsers::user)
+                    .toList();
+            HttpResponse<Void> response = httpClient.send(
+                    json(URI.create(users + "/batch"), "POST", objectMapper.writeValueAsBytes(batch)),
+                    HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 300) {
+                throw new IllegalStateException("Can't seed users: HTTP " + response.statusCode());
+            }
+        }
+    }
+
+    private static ClientResult runClient(HttpClient httpClient, ObjectMapper objectMapper, URI users,
+                                          int userCount, long deadline) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[1024];
+        int count = 0;
+        long errors = 0;
+        while (System.nanoTime() < deadline) {
+            HttpRequest request;
+            if (random.nextInt(10) < 8) {
+                LocalDate startDate = BenchmarkUsers.FIRST_BIRTH_DATE.plusDays(
+                        random.nextInt(BenchmarkUsers.BIRTH_DATE_DAYS - 7));
+                request = HttpRequest.newBuilder(URI.create(users + "?startDate=" + startDate
+                                + "&endDate=" + startDate.plusDays(6)))
+                        .timeout(REQUEST_TIMEOUT)
+                        .GET()
+                        .build();
+            } else {
+                User patch = User.builder()
+                        .email(BenchmarkUsers.email(random.nextInt(userCount)))
+                        .phoneNumber("+380" + (100000000 + random.nextInt(100000000)))
+                        .build();
+                request = json(users, "PATCH", objectMapper.writeValueAsBytes(patch));
+            }
+
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 300) {
+                    errors++;
+                }
+            } catch (IOException e) {
+                errors++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return new ClientResult(Arrays.copyOf(latencies, count), errors);
+    }
+
+    private static HttpRequest json(URI uri, String method, byte[] body) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private record ClientResult(long[] latencies, long errors) {
+    }
+}
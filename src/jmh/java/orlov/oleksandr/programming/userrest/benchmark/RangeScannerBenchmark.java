@@ -0,0 +1,75 @@
+package orlov.oleksandr.programming.userrest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.store.RangeScanner;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+import orlov.oleksandr.programming.userrest.store.impl.InMemoryUserStore;
+import orlov.oleksandr.programming.userrest.store.offheap.OffHeapUserStore;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of copying a range of the whole store, sequentially and on a scan pool of every core.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RangeScannerBenchmark {
+
+    private static final int USER_COUNT = 1_000_000;
+
+    @Param({"heap", "off-heap"})
+    private String engine;
+
+    /**
+     * 0 copies sequentially.
+     */
+    @Param({"0", "10000"})
+    private int threshold;
+
+    private UserStore userStore;
+
+    private ForkJoinPool pool;
+
+    private RangeScanner scanner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userStore = engine.equals("off-heap") ? new OffHeapUserStore() : new InMemoryUserStore();
+        for (int i = 0; i < USER_COUNT; i++) {
+            userStore.insertIfAbsent(BenchmarkUsers.user(i));
+        }
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        scanner = new RangeScanner(pool, threshold);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<User> copyAll() {
+        LocalDate from = BenchmarkUsers.FIRST_BIRTH_DATE;
+        return scanner.copy(userStore, from, from.plusDays(BenchmarkUsers.BIRTH_DATE_DAYS));
+    }
+}
@@ -0,0 +1,76 @@
+package orlov.oleksandr.programming.userrest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+import orlov.oleksandr.programming.userrest.store.impl.InMemoryUserStore;
+import orlov.oleksandr.programming.userrest.store.impl.ShardedUserStore;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write throughput of the single store against the sharded one. Run through {@link BenchmarkRunner},
+ * which repeats it for every thread count up to the number of cores, to see how writes scale.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardedUserStoreBenchmark {
+
+    private static final int USER_COUNT = 100_000;
+
+    /**
+     * 1 means a plain {@link InMemoryUserStore}.
+     */
+    @Param({"1", "4", "16"})
+    private int shards;
+
+    private UserStore userStore;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userStore = shards == 1 ? new InMemoryUserStore() : new ShardedUserStore(shards);
+        for (int i = 0; i < USER_COUNT; i++) {
+            userStore.insertIfAbsent(BenchmarkUsers.user(i));
+        }
+    }
+
+    @Benchmark
+    public Optional<User> update() {
+        int i = ThreadLocalRandom.current().nextInt(USER_COUNT);
+        return userStore.update(BenchmarkUsers.email(i),
+                user -> user.toBuilder().birthDate(user.getBirthDate().plusDays(1)).build());
+    }
+
+    @Benchmark
+    public boolean insertAndRemove() {
+        User user = BenchmarkUsers.user(USER_COUNT + ThreadLocalRandom.current().nextInt(USER_COUNT));
+        userStore.insertIfAbsent(user);
+        return userStore.remove(user);
+    }
+
+    @Benchmark
+    public List<User> copyMonthRange() {
+        LocalDate from = BenchmarkUsers.FIRST_BIRTH_DATE.plusDays(
+                ThreadLocalRandom.current().nextInt(BenchmarkUsers.BIRTH_DATE_DAYS - 30));
+        return List.copyOf(userStore.findByBirthDateBetween(from, from.plusDays(30)));
+    }
+}
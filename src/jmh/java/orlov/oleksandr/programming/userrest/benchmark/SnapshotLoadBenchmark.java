@@ -0,0 +1,94 @@
+package orlov.oleksandr.programming.userrest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+import orlov.oleksandr.programming.userrest.store.impl.InMemoryUserStore;
+import orlov.oleksandr.programming.userrest.store.offheap.OffHeapUserStore;
+import orlov.oleksandr.programming.userrest.store.persistence.FsyncPolicy;
+import orlov.oleksandr.programming.userrest.store.persistence.UserSnapshot;
+import orlov.oleksandr.programming.userrest.store.persistence.UserStorePersistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup time with a large snapshot: recovery through the store's bulk load against inserting the
+ * snapshot users one at a time. Each invocation loads the whole snapshot into an empty store.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx8g", "-XX:MaxDirectMemorySize=8g"})
+@State(Scope.Benchmark)
+public class SnapshotLoadBenchmark {
+
+    @Param({"5000000"})
+    private int users;
+
+    @Param({"heap", "off-heap"})
+    private String engine;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot-load");
+        UserSnapshot.write(directory.resolve("users.snapshot"), 0, () -> new Iterator<>() {
+
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < users;
+            }
+
+            @Override
+            public User next() {
+                return BenchmarkUsers.user(next++);
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public UserStore recover() throws IOException {
+        UserStore userStore = newStore();
+        try (UserStorePersistence persistence = new UserStorePersistence(directory, FsyncPolicy.NONE, 0)) {
+            persistence.recover(userStore);
+        }
+        return userStore;
+    }
+
+    @Benchmark
+    public UserStore insertOneByOne() throws IOException {
+        UserStore userStore = newStore();
+        UserSnapshot.load(directory.resolve("users.snapshot"), userStore::insertIfAbsent);
+        return userStore;
+    }
+
+    private UserStore newStore() {
+        return engine.equals("off-heap") ? new OffHeapUserStore() : new InMemoryUserStore();
+    }
+}
@@ -0,0 +1,58 @@
+package orlov.oleksandr.programming.userrest.benchmark;
+
+import orlov.oleksandr.programming.userrest.store.UserStore;
+import orlov.oleksandr.programming.userrest.store.impl.InMemoryUserStore;
+import orlov.oleksandr.programming.userrest.store.impl.StringDictionary;
+import orlov.oleksandr.programming.userrest.store.offheap.OffHeapUserStore;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Loads users into one store engine and prints the live heap, the direct memory and how long a full
+ * collection takes with the store in memory, to compare the heap engine, with and without its string
+ * dictionary, and the off-heap one. Run each engine in its own JVM with the same heap size.
+ * <p>
+ * Arguments: {@code <heap|heap-dictionary|off-heap> [users=1000000]}.
+ */
+public final class StoreFootprint {
+
+    private static final int FULL_GCS = 5;
+
+    private static final int DICTIONARY_CAPACITY = 65536;
+
+    private StoreFootprint() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: StoreFootprint <heap|heap-dictionary|off-heap> [users]");
+            System.exit(1);
+        }
+        UserStore userStore = switch (args[0]) {
+            case "off-heap" -> new OffHeapUserStore();
+            case "heap-dictionary" -> new InMemoryUserStore(new StringDictionary(DICTIONARY_CAPACITY));
+            default -> new InMemoryUserStore();
+        };
+        int userCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        for (int i = 0; i < userCount; i++) {
+            userStore.insertIfAbsent(BenchmarkUsers.user(i));
+        }
+
+        long gcMillis = 0;
+        for (int i = 0; i < FULL_GCS; i++) {
+            long start = System.nanoTime();
+            System.gc();
+            gcMillis += (System.nanoTime() - start) / 1_000_000;
+        }
+
+        long heapBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long directBytes = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+        System.out.printf("%s: %d users, heap %d MB, direct %d MB, full GC %d ms%n", args[0], userStore.size(),
+                heapBytes >> 20, directBytes >> 20, gcMillis / FULL_GCS);
+    }
+}
@@ -0,0 +1,76 @@
+package orlov.oleksandr.programming.userrest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.service.UserService;
+import orlov.oleksandr.programming.userrest.service.impl.BirthDateCutoff;
+import orlov.oleksandr.programming.userrest.service.impl.UserServiceImpl;
+import orlov.oleksandr.programming.userrest.store.RangeScanner;
+import orlov.oleksandr.programming.userrest.store.impl.InMemoryUserStore;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of typeahead searches with the default limit of 20.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserSearchBenchmark {
+
+    private static final int MINIMAL_AGE = 18;
+
+    private static final int LIMIT = 20;
+
+    @Param({"1000000"})
+    private int userCount;
+
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userService = new UserServiceImpl(new BirthDateCutoff(MINIMAL_AGE, Clock.systemDefaultZone()),
+                new InMemoryUserStore(), RangeScanner.sequential());
+        for (int i = 0; i < userCount; i++) {
+            userService.create(BenchmarkUsers.user(i));
+        }
+    }
+
+    /**
+     * Three characters of a last name number, matching about 1% of the users.
+     */
+    @Benchmark
+    public List<User> searchByLastNamePrefix() {
+        return userService.searchUsers("last" + ThreadLocalRandom.current().nextInt(100, 1000), null, null, LIMIT);
+    }
+
+    @Benchmark
+    public List<User> searchByEmailPrefix() {
+        return userService.searchUsers(null, "user" + ThreadLocalRandom.current().nextInt(10_000), null, LIMIT);
+    }
+
+    /**
+     * A house number shared by 0.5% of the users and two words shared by all of them.
+     */
+    @Benchmark
+    public List<User> searchByAddressWords() {
+        return userService.searchUsers(null, null, ThreadLocalRandom.current().nextInt(200) + " main street", LIMIT);
+    }
+}
@@ -0,0 +1,67 @@
+package orlov.oleksandr.programming.userrest.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import orlov.oleksandr.programming.userrest.json.UserJsonModule;
+import orlov.oleksandr.programming.userrest.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes a range query result with the JSR-310 module and ISO dates, through bean introspection and through
+ * {@link UserJsonModule} as the controller does. Run with {@code -prof gc} to compare allocation per list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserSerializationBenchmark {
+
+    @Param({"100", "10000"})
+    private int userCount;
+
+    private ObjectMapper objectMapper;
+
+    private ObjectMapper userModuleObjectMapper;
+
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        userModuleObjectMapper = objectMapper.copy().registerModule(new UserJsonModule());
+
+        users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(BenchmarkUsers.user(i));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeUserList() throws Exception {
+        return objectMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] serializeUserListWithUserJsonModule() throws Exception {
+        return userModuleObjectMapper.writeValueAsBytes(users);
+    }
+}
@@ -0,0 +1,94 @@
+package orlov.oleksandr.programming.userrest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.service.UserService;
+import orlov.oleksandr.programming.userrest.service.impl.BirthDateCutoff;
+import orlov.oleksandr.programming.userrest.service.impl.UserServiceImpl;
+import orlov.oleksandr.programming.userrest.store.RangeScanner;
+import orlov.oleksandr.programming.userrest.store.impl.InMemoryUserStore;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    private static final int MINIMAL_AGE = 18;
+
+    @Param({"10000", "100000", "1000000"})
+    private int userCount;
+
+    private UserService userService;
+
+    private final AtomicInteger nextNewUser = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userService = new UserServiceImpl(new BirthDateCutoff(MINIMAL_AGE, Clock.systemDefaultZone()),
+                new InMemoryUserStore(), RangeScanner.sequential());
+        for (int i = 0; i < userCount; i++) {
+            userService.create(BenchmarkUsers.user(i));
+        }
+        nextNewUser.set(userCount);
+    }
+
+    @Benchmark
+    public User getUserByEmail() {
+        return userService.getUserByEmail(BenchmarkUsers.email(randomUser()));
+    }
+
+    @Benchmark
+    public User update() {
+        return userService.update(BenchmarkUsers.user(randomUser()));
+    }
+
+    @Benchmark
+    public User partialUpdate() {
+        User patch = new User();
+        patch.setEmail(BenchmarkUsers.email(randomUser()));
+        patch.setAddress("Patched Street");
+        return userService.partialUpdate(patch);
+    }
+
+    /**
+     * Creates a new user and deletes it again, so the store keeps its size during the measurement.
+     */
+    @Benchmark
+    public void createAndDelete() {
+        User user = BenchmarkUsers.user(nextNewUser.getAndIncrement());
+        userService.create(user);
+        userService.delete(user);
+    }
+
+    @Benchmark
+    public void getUsersWithBirthDateInBetweenWeek(Blackhole blackhole) {
+        LocalDate from = BenchmarkUsers.FIRST_BIRTH_DATE
+                .plusDays(ThreadLocalRandom.current().nextInt(BenchmarkUsers.BIRTH_DATE_DAYS - 7));
+        blackhole.consume(userService.getUsersWithBirthDateInBetween(from, from.plusDays(6)));
+    }
+
+    private int randomUser() {
+        return ThreadLocalRandom.current().nextInt(userCount);
+    }
+}
@@ -0,0 +1,81 @@
+package orlov.oleksandr.programming.userrest.benchmark;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.service.impl.BirthDateCutoff;
+import orlov.oleksandr.programming.userrest.validation.UserValidator;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates one request user with Bean Validation, collecting the errors the way the controllers used to,
+ * and with {@link UserValidator}. Run with {@code -prof gc} to compare allocation per call as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserValidationBenchmark {
+
+    @Param({"true", "false"})
+    private boolean valid;
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator beanValidator;
+
+    private UserValidator userValidator;
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        beanValidator = validatorFactory.getValidator();
+        userValidator = new UserValidator(new BirthDateCutoff(18, Clock.systemDefaultZone()));
+
+        user = BenchmarkUsers.user(42);
+        if (!valid) {
+            user.setEmail("User42@example");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Map<String, String> beanValidation() {
+        Map<String, String> errors = new HashMap<>();
+        for (ConstraintViolation<User> violation : beanValidator.validate(user)) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return errors;
+    }
+
+    @Benchmark
+    public Map<String, String> userValidator() {
+        return userValidator.validate(user);
+    }
+}
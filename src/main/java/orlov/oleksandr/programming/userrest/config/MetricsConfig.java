@@ -0,0 +1,72 @@
+package orlov.oleksandr.programming.userrest.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+import orlov.oleksandr.programming.userrest.store.impl.StringDictionary;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder userStoreMetrics(UserStore userStore) {
+        return meterRegistry -> {
+            Gauge.builder("users.store.size", userStore, UserStore::size)
+                    .description("Number of stored users")
+                    .register(meterRegistry);
+
+            for (String index : userStore.indexSizes().keySet()) {
+                Gauge.builder("users.store.index.size", userStore, store -> store.indexSizes().get(index))
+                        .description("Number of entries in a user store index")
+                        .tag("index", index)
+                        .register(meterRegistry);
+            }
+        };
+    }
+
+    /**
+     * Hit, miss and eviction counts of the user cache as {@code cache.gets}, {@code cache.evictions}, etc.
+     * with {@code cache=users}.
+     */
+    @Bean
+    public MeterBinder userCacheMetrics(ObjectProvider<Cache<String, User>> userCache) {
+        return meterRegistry -> userCache.ifAvailable(cache -> CaffeineCacheMetrics.monitor(meterRegistry, cache, "users"));
+    }
+
+    /**
+     * Dictionary hits and misses as {@code users.store.dictionary.lookups} and the heap they saved as
+     * {@code users.store.dictionary.saved}.
+     */
+    @Bean
+    public MeterBinder userStringDictionaryMetrics(ObjectProvider<StringDictionary> userStringDictionary) {
+        return meterRegistry -> userStringDictionary.ifAvailable(dictionary -> {
+            FunctionCounter.builder("users.store.dictionary.lookups", dictionary, StringDictionary::hits)
+                    .description("Strings looked up in the user string dictionary")
+                    .tag("result", "hit")
+                    .register(meterRegistry);
+            FunctionCounter.builder("users.store.dictionary.lookups", dictionary, StringDictionary::misses)
+                    .description("Strings looked up in the user string dictionary")
+                    .tag("result", "miss")
+                    .register(meterRegistry);
+            FunctionCounter.builder("users.store.dictionary.saved", dictionary, StringDictionary::savedBytes)
+                    .description("Estimated heap released by replacing user strings with shared instances")
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(meterRegistry);
+        });
+    }
+}
@@ -1,16 +1,47 @@
 package orlov.oleksandr.programming.userrest.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import orlov.oleksandr.programming.userrest.model.User;
+
+import java.time.Clock;
+import java.time.Duration;
 
 @Configuration
 public class PropertyConfig {
     @Value("${minimal.age}")
     private int minimalAge;
 
+    @Value("${user.cache.maximum-size}")
+    private long userCacheMaximumSize;
+
+    @Value("${user.cache.expire-after-write}")
+    private Duration userCacheExpireAfterWrite;
+
     @Bean
     public int minimalAge() {
         return minimalAge;
     }
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+
+    /**
+     * Size bounded (W-TinyLFU) cache of users by email.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "user.cache.enabled", havingValue = "true")
+    public Cache<String, User> userCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(userCacheMaximumSize)
+                .expireAfterWrite(userCacheExpireAfterWrite)
+                .recordStats()
+                .build();
+    }
 }
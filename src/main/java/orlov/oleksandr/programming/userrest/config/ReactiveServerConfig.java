@@ -0,0 +1,21 @@
+package orlov.oleksandr.programming.userrest.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * With {@code spring.main.web-application-type=reactive} Spring Boot would run WebFlux on Tomcat, because
+ * Tomcat is on the classpath for the servlet stack. Netty is declared explicitly so that the reactive stack
+ * serves connections from its small set of event-loop threads.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,109 @@
+package orlov.oleksandr.programming.userrest.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.store.RangeScanner;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+import orlov.oleksandr.programming.userrest.store.cache.CachingUserStore;
+import orlov.oleksandr.programming.userrest.store.impl.InMemoryUserStore;
+import orlov.oleksandr.programming.userrest.store.impl.ShardedUserStore;
+import orlov.oleksandr.programming.userrest.store.impl.StringDictionary;
+import orlov.oleksandr.programming.userrest.store.offheap.OffHeapUserStore;
+import orlov.oleksandr.programming.userrest.store.persistence.DurableUserStore;
+import orlov.oleksandr.programming.userrest.store.persistence.FsyncPolicy;
+import orlov.oleksandr.programming.userrest.store.persistence.UserStorePersistence;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Supplier;
+
+@Configuration
+@EnableScheduling
+public class StoreConfig {
+    @Value("${user.store.shards}")
+    private int shards;
+
+    @Value("${user.store.off-heap}")
+    private boolean offHeap;
+
+    @Value("${user.store.dictionary.capacity}")
+    private int dictionaryCapacity;
+
+    @Value("${user.scan.parallelism}")
+    private int scanParallelism;
+
+    @Value("${user.scan.parallel-threshold}")
+    private int scanParallelThreshold;
+
+    @Value("${user.persistence.directory}")
+    private Path persistenceDirectory;
+
+    @Value("${user.persistence.fsync-policy}")
+    private FsyncPolicy fsyncPolicy;
+
+    @Value("${user.persistence.fsync-interval-ms}")
+    private long fsyncIntervalMs;
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "user.persistence.enabled", havingValue = "true")
+    public UserStorePersistence userStorePersistence() {
+        return new UserStorePersistence(persistenceDirectory, fsyncPolicy, fsyncIntervalMs);
+    }
+
+    /**
+     * Runs parallel range scans apart from the common pool and the request threads.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool userScanPool() {
+        int parallelism = scanParallelism > 0
+                ? scanParallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("user-scan-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    @Bean
+    public RangeScanner rangeScanner(ForkJoinPool userScanPool) {
+        return new RangeScanner(userScanPool, scanParallelThreshold);
+    }
+
+    /**
+     * The off-heap store keeps every string once anyway, so the dictionary only applies to the heap one.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "user.store.dictionary.enabled", havingValue = "true")
+    public StringDictionary userStringDictionary() {
+        return new StringDictionary(dictionaryCapacity);
+    }
+
+    @Bean
+    public UserStore userStore(ObjectProvider<UserStorePersistence> userStorePersistence,
+                               ObjectProvider<Cache<String, User>> userCache,
+                               ObjectProvider<StringDictionary> userStringDictionary) throws IOException {
+        StringDictionary dictionary = userStringDictionary.getIfAvailable();
+        Supplier<UserStore> engine = offHeap ? OffHeapUserStore::new : () -> new InMemoryUserStore(dictionary);
+        UserStore userStore = shards > 1
+                ? new ShardedUserStore(shards, engine)
+                : engine.get();
+
+        UserStorePersistence persistence = userStorePersistence.getIfAvailable();
+        if (persistence != null) {
+            persistence.recover(userStore);
+            userStore = new DurableUserStore(userStore, persistence);
+        }
+
+        Cache<String, User> cache = userCache.getIfAvailable();
+        return cache == null ? userStore : new CachingUserStore(userStore, cache);
+    }
+}
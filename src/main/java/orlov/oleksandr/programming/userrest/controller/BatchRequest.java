@@ -0,0 +1,77 @@
+package orlov.oleksandr.programming.userrest.controller;
+
+import orlov.oleksandr.programming.userrest.model.BatchItemResult;
+import orlov.oleksandr.programming.userrest.model.BatchItemStatus;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.service.UserService;
+import orlov.oleksandr.programming.userrest.validation.UserValidator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Batch of users after validation: invalid items already have their results, only the valid users
+ * go to the service in one call, and {@link #complete} merges the service results back in request order.
+ */
+final class BatchRequest {
+
+    private final BatchItemResult[] results;
+
+    private final List<User> validUsers;
+
+    private BatchRequest(BatchItemResult[] results, List<User> validUsers) {
+        this.results = results;
+        this.validUsers = validUsers;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the batch is larger than {@link UserService#MAX_BATCH_SIZE},
+     *                                  before any user is validated
+     */
+    static BatchRequest validate(List<User> users, UserValidator validator) {
+        Objects.requireNonNull(users, "Users must not be null");
+        if (users.size() > UserService.MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch size must not be more than " + UserService.MAX_BATCH_SIZE
+                    + ": " + users.size());
+        }
+
+        BatchItemResult[] results = new BatchItemResult[users.size()];
+        List<User> validUsers = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (user == null) {
+                results[i] = BatchItemResult.of(null, BatchItemStatus.INVALID, "User must not be null");
+                continue;
+            }
+
+            Map<String, String> errors = validator.validate(user);
+            if (!errors.isEmpty()) {
+                results[i] = BatchItemResult.of(user, BatchItemStatus.INVALID, errors.toString());
+            } else {
+                validUsers.add(user);
+            }
+        }
+        return new BatchRequest(results, validUsers);
+    }
+
+    List<User> validUsers() {
+        return validUsers;
+    }
+
+    /**
+     * @param serviceResults results for {@link #validUsers()}, in the same order
+     */
+    List<BatchItemResult> complete(List<BatchItemResult> serviceResults) {
+        Iterator<BatchItemResult> iterator = serviceResults.iterator();
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = iterator.next();
+            }
+        }
+        return Arrays.asList(results);
+    }
+}
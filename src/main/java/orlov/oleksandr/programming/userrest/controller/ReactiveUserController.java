@@ -0,0 +1,166 @@
+package orlov.oleksandr.programming.userrest.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import orlov.oleksandr.programming.userrest.exception.ValidationException;
+import orlov.oleksandr.programming.userrest.exception.VersionConflictException;
+import orlov.oleksandr.programming.userrest.model.BatchItemResult;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserPage;
+import orlov.oleksandr.programming.userrest.model.UserStats;
+import orlov.oleksandr.programming.userrest.service.ReactiveUserService;
+import orlov.oleksandr.programming.userrest.validation.UserValidator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The {@link UserController} contract on WebFlux, active when the application is started with
+ * {@code spring.main.web-application-type=reactive}.
+ */
+@RestController
+@RequestMapping("/api/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    private final UserValidator validator;
+
+    public ReactiveUserController(ReactiveUserService userService, UserValidator validator) {
+        this.userService = userService;
+        this.validator = validator;
+    }
+
+    @GetMapping("/{email}")
+    public Mono<ResponseEntity<User>> getUser(@PathVariable String email) {
+        return userService.getUserByEmail(email)
+                .map(user -> ResponseEntity.ok().eTag(UserETags.of(user)).body(user));
+    }
+
+    @GetMapping("/stats")
+    public Mono<UserStats> getStats() {
+        return userService.getStats();
+    }
+
+    @GetMapping("/stats/birth-years")
+    public Mono<Map<Integer, Long>> getBirthYearHistogram() {
+        return userService.getBirthYearHistogram();
+    }
+
+    @GetMapping("/stats/birth-months")
+    public Mono<Map<YearMonth, Long>> getBirthMonthHistogram() {
+        return userService.getBirthMonthHistogram();
+    }
+
+    @GetMapping("/search")
+    public Mono<List<User>> searchUsers(@RequestParam(required = false) String lastName,
+                                        @RequestParam(required = false) String email,
+                                        @RequestParam(required = false) String address,
+                                        @RequestParam(defaultValue = "20") int limit) {
+
+        return userService.searchUsers(lastName, email, address, limit);
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<User>> createUser(@RequestBody User user) {
+        validate(user);
+
+        return userService.create(user)
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).eTag(UserETags.of(created)).body(created));
+    }
+
+    @PutMapping
+    public Mono<ResponseEntity<User>> updateUser(@RequestBody User user,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                 String ifMatch) {
+        validate(user);
+
+        return writeIfMatch(user, ifMatch, userService::update)
+                .map(updated -> ResponseEntity.ok().eTag(UserETags.of(updated)).body(updated));
+    }
+
+    @PatchMapping
+    public Mono<ResponseEntity<User>> partialUpdateUser(@RequestBody User user,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                        String ifMatch) {
+        return writeIfMatch(user, ifMatch, userService::partialUpdate)
+                .map(updated -> ResponseEntity.ok().eTag(UserETags.of(updated)).body(updated));
+    }
+
+    @DeleteMapping
+    public Mono<ResponseEntity<Object>> deleteUser(@RequestBody User user,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                   String ifMatch) {
+        validate(user);
+
+        return writeIfMatch(user, ifMatch, userService::delete)
+                .then(Mono.fromSupplier(() -> ResponseEntity.noContent().build()));
+    }
+
+    @PostMapping("/batch")
+    public Mono<List<BatchItemResult>> createUsers(@RequestBody List<User> users) {
+        return processBatch(users, userService::createAll);
+    }
+
+    @PutMapping("/batch")
+    public Mono<List<BatchItemResult>> updateUsers(@RequestBody List<User> users) {
+        return processBatch(users, userService::updateAll);
+    }
+
+    @DeleteMapping("/batch")
+    public Mono<List<BatchItemResult>> deleteUsers(@RequestBody List<User> users) {
+        return processBatch(users, userService::deleteAll);
+    }
+
+    /**
+     * Streams the range as a JSON array or as NDJSON, depending on the Accept header.
+     * Users are read from the store only as fast as the client consumes them.
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<User> getUsersInDateRange(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate) {
+
+        return userService.getUsersWithBirthDateInBetween(startDate, endDate);
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<UserPage> getUsersInDateRangePage(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate,
+                                                  @RequestParam int limit,
+                                                  @RequestParam(required = false) String cursor) {
+
+        return userService.getUsersWithBirthDateInBetween(startDate, endDate, cursor, limit);
+    }
+
+    /**
+     * Runs the write with the If-Match version as the expected one; a conflict with it is a failed precondition.
+     */
+    private static <T> Mono<T> writeIfMatch(User user, String ifMatch, Function<User, Mono<T>> write) {
+        if (!UserETags.applyIfMatch(user, ifMatch)) {
+            return write.apply(user);
+        }
+
+        return write.apply(user).onErrorMap(VersionConflictException.class, UserETags::preconditionFailed);
+    }
+
+    private Mono<List<BatchItemResult>> processBatch(List<User> users,
+                                                     Function<List<User>, Mono<List<BatchItemResult>>> operation) {
+        BatchRequest batch = BatchRequest.validate(users, validator);
+        return operation.apply(batch.validUsers()).map(batch::complete);
+    }
+
+    private void validate(User user) {
+        Map<String, String> errors = validator.validate(user);
+        if (!errors.isEmpty()) {
+            throw new ValidationException(errors);
+        }
+    }
+}
@@ -1,75 +1,246 @@
 package orlov.oleksandr.programming.userrest.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.validation.BindingResult;
-import org.springframework.validation.FieldError;
-import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import orlov.oleksandr.programming.userrest.exception.ValidationException;
+import orlov.oleksandr.programming.userrest.exception.VersionConflictException;
+import orlov.oleksandr.programming.userrest.model.BatchItemResult;
 import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserPage;
+import orlov.oleksandr.programming.userrest.model.UserRange;
+import orlov.oleksandr.programming.userrest.model.UserStats;
 import orlov.oleksandr.programming.userrest.service.UserService;
+import orlov.oleksandr.programming.userrest.validation.UserValidator;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.time.YearMonth;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserController {
 
+    /**
+     * The first user is flushed right away so clients get the first byte early, then every this many users.
+     */
+    private static final int STREAM_FLUSH_INTERVAL = 1000;
+
     private final UserService userService;
 
-    public UserController(UserService userService) {
+    private final ObjectMapper objectMapper;
+
+    private final UserValidator validator;
+
+    public UserController(UserService userService, ObjectMapper objectMapper, UserValidator validator) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    @GetMapping("/{email}")
+    public ResponseEntity<User> getUser(@PathVariable String email) {
+        User user = userService.getUserByEmail(email);
+
+        return ResponseEntity.ok().eTag(UserETags.of(user)).body(user);
+    }
+
+    @GetMapping("/stats")
+    public UserStats getStats() {
+        return userService.getStats();
+    }
+
+    @GetMapping("/stats/birth-years")
+    public Map<Integer, Long> getBirthYearHistogram() {
+        return userService.getBirthYearHistogram();
+    }
+
+    @GetMapping("/stats/birth-months")
+    public Map<YearMonth, Long> getBirthMonthHistogram() {
+        return userService.getBirthMonthHistogram();
+    }
+
+    /**
+     * Typeahead search by last name prefix, email prefix or address words; exactly one of them.
+     */
+    @GetMapping("/search")
+    public List<User> searchUsers(@RequestParam(required = false) String lastName,
+                                  @RequestParam(required = false) String email,
+                                  @RequestParam(required = false) String address,
+                                  @RequestParam(defaultValue = "20") int limit) {
+
+        return userService.searchUsers(lastName, email, address, limit);
     }
 
     @PostMapping
-    public ResponseEntity<User> createUser(@RequestBody @Validated User user, BindingResult bindingResult) {
-        if (bindingResult.hasErrors()) {
-            throw new ValidationException(getErrors(bindingResult));
-        }
+    public ResponseEntity<User> createUser(@RequestBody User user) {
+        validate(user);
+
+        User created = userService.create(user);
 
-        return new ResponseEntity<>(userService.create(user), HttpStatus.CREATED);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(UserETags.of(created)).body(created);
     }
 
     @PutMapping
-    public ResponseEntity<User> updateUser(@RequestBody @Validated User user, BindingResult bindingResult) {
-        if (bindingResult.hasErrors()) {
-            throw new ValidationException(getErrors(bindingResult));
-        }
+    public ResponseEntity<User> updateUser(@RequestBody User user,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                           String ifMatch) {
+        validate(user);
 
-        return new ResponseEntity<>(userService.update(user), HttpStatus.OK);
+        User updated = writeIfMatch(user, ifMatch, userService::update);
+
+        return ResponseEntity.ok().eTag(UserETags.of(updated)).body(updated);
     }
 
     @PatchMapping
-    public User partialUpdateUser(@RequestBody User user) throws IllegalAccessException {
-        return userService.partialUpdate(user);
+    public ResponseEntity<User> partialUpdateUser(@RequestBody User user,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                  String ifMatch) {
+        User updated = writeIfMatch(user, ifMatch, userService::partialUpdate);
+
+        return ResponseEntity.ok().eTag(UserETags.of(updated)).body(updated);
     }
 
     @DeleteMapping
-    public ResponseEntity<Object> deleteUser(@RequestBody @Validated User user, BindingResult bindingResult) {
-        if (bindingResult.hasErrors()) {
-            throw new ValidationException(getErrors(bindingResult));
-        }
+    public ResponseEntity<Object> deleteUser(@RequestBody User user,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                             String ifMatch) {
+        validate(user);
 
-        userService.delete(user);
+        writeIfMatch(user, ifMatch, deleted -> {
+            userService.delete(deleted);
+            return null;
+        });
 
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/batch")
+    public List<BatchItemResult> createUsers(@RequestBody List<User> users) {
+        return processBatch(users, userService::createAll);
+    }
+
+    @PutMapping("/batch")
+    public List<BatchItemResult> updateUsers(@RequestBody List<User> users) {
+        return processBatch(users, userService::updateAll);
+    }
+
+    @DeleteMapping("/batch")
+    public List<BatchItemResult> deleteUsers(@RequestBody List<User> users) {
+        return processBatch(users, userService::deleteAll);
+    }
+
+    /**
+     * Answers a matching If-None-Match with 304 Not Modified, without serializing the users.
+     */
     @GetMapping
-    public List<User> getUsersInDateRange(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate) {
+    public ResponseEntity<List<User>> getUsersInDateRange(@RequestParam LocalDate startDate,
+                                                          @RequestParam LocalDate endDate) {
+
+        UserRange range = userService.getUserRange(startDate, endDate);
+        return ResponseEntity.ok().eTag(UserETags.of(range)).body(range.getUsers());
+    }
+
+    @GetMapping(params = "limit")
+    public UserPage getUsersInDateRangePage(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate,
+                                            @RequestParam int limit, @RequestParam(required = false) String cursor) {
+
+        return userService.getUsersWithBirthDateInBetween(startDate, endDate, cursor, limit);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsersInDateRangeAsNdjson(@RequestParam LocalDate startDate,
+                                                                                @RequestParam LocalDate endDate) {
+        Stream<User> users = userService.streamUsersWithBirthDateInBetween(startDate, endDate);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> writeUsers(users, outputStream, false));
+    }
+
+    /**
+     * A request that also has a limit is a page request, see {@link #getUsersInDateRangePage}.
+     */
+    @GetMapping(params = {"stream=true", "!limit"})
+    public ResponseEntity<StreamingResponseBody> streamUsersInDateRangeAsJsonArray(@RequestParam LocalDate startDate,
+                                                                                   @RequestParam LocalDate endDate) {
+        Stream<User> users = userService.streamUsersWithBirthDateInBetween(startDate, endDate);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> writeUsers(users, outputStream, true));
+    }
+
+    private void writeUsers(Stream<User> users, OutputStream outputStream, boolean asArray) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            if (asArray) {
+                generator.writeStartArray();
+            }
+
+            long written = 0;
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+                if (!asArray) {
+                    generator.writeRaw('\n');
+                }
+                if (written++ % STREAM_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+
+            if (asArray) {
+                generator.writeEndArray();
+            }
+        } finally {
+            users.close();
+        }
+    }
+
+    /**
+     * Runs the write with the If-Match version as the expected one; a conflict with it is a failed precondition.
+     */
+    private static <T> T writeIfMatch(User user, String ifMatch, Function<User, T> write) {
+        if (!UserETags.applyIfMatch(user, ifMatch)) {
+            return write.apply(user);
+        }
+
+        try {
+            return write.apply(user);
+        } catch (VersionConflictException e) {
+            throw UserETags.preconditionFailed(e);
+        }
+    }
 
-        return userService.getUsersWithBirthDateInBetween(startDate, endDate);
+    /**
+     * Validates every item, passes only the valid users to the service in one call
+     * and returns the results in request order.
+     */
+    private List<BatchItemResult> processBatch(List<User> users,
+                                               Function<List<User>, List<BatchItemResult>> operation) {
+        BatchRequest batch = BatchRequest.validate(users, validator);
+        return batch.complete(operation.apply(batch.validUsers()));
     }
 
-    private Map<String, String> getErrors(BindingResult bindingResult) {
-        Map<String, String> errors = new HashMap<>();
-        for (FieldError fieldError : bindingResult.getFieldErrors()) {
-            errors.put(fieldError.getField(), fieldError.getDefaultMessage());
+    private void validate(User user) {
+        Map<String, String> errors = validator.validate(user);
+        if (!errors.isEmpty()) {
+            throw new ValidationException(errors);
         }
-        return errors;
     }
 }
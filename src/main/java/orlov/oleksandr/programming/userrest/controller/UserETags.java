@@ -0,0 +1,53 @@
+package orlov.oleksandr.programming.userrest.controller;
+
+import orlov.oleksandr.programming.userrest.exception.PreconditionFailedException;
+import orlov.oleksandr.programming.userrest.exception.VersionConflictException;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserRange;
+
+/**
+ * Maps user versions to strong ETags ({@code "<version>"}) and If-Match headers back to expected versions.
+ * Ranges are tagged with the hex tag of their users ({@code "r<tag>"}).
+ */
+final class UserETags {
+
+    private UserETags() {
+    }
+
+    static String of(User user) {
+        return "\"" + user.getVersion() + "\"";
+    }
+
+    static String of(UserRange range) {
+        return "\"r" + Long.toHexString(range.getTag()) + "\"";
+    }
+
+    /**
+     * Makes the version named by the If-Match header the version the write expects.
+     * Without the header, or with {@code *}, the version from the request body is kept.
+     *
+     * @return true if the write is conditional on the header
+     * @throws IllegalArgumentException if the header is not a single strong ETag of a user
+     */
+    static boolean applyIfMatch(User user, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return false;
+        }
+
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+        }
+        try {
+            user.setVersion(Long.parseLong(tag, 1, tag.length() - 1, 10));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+        }
+        return true;
+    }
+
+    static PreconditionFailedException preconditionFailed(VersionConflictException exception) {
+        return new PreconditionFailedException("If-Match doesn't match user " + exception.getEmail()
+                + ", current ETag is \"" + exception.getActualVersion() + "\"", exception);
+    }
+}
@@ -0,0 +1,12 @@
+package orlov.oleksandr.programming.userrest.exception;
+
+import java.time.LocalDate;
+
+/**
+ * The user is younger than the minimal age.
+ */
+public class AgeRestrictionException extends UserRequestException {
+    public AgeRestrictionException(int minimalAge, LocalDate birthDate) {
+        super("User's age is less than " + minimalAge + ": " + birthDate);
+    }
+}
@@ -1,5 +1,7 @@
 package orlov.oleksandr.programming.userrest.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -7,6 +9,7 @@ import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebInputException;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import java.io.IOException;
@@ -15,76 +18,195 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Maps exceptions to error responses. Every kind of error is counted, but logged at most
+ * {@value #LOGS_PER_SECOND} times per second; client errors are logged by message, with the stack trace
+ * only at debug level, so a flood of bad requests doesn't turn into a flood of stack traces.
+ */
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final int LOGS_PER_SECOND = 10;
+
+    private static final Map<String, Object> USER_NOT_FOUND_BODY =
+            Map.of("message", "Bad request", "errors", UserNotFoundException.MESSAGE);
+
+    private final HandledError validationErrors;
+
+    private final HandledError userNotFoundErrors;
+
+    private final HandledError illegalArgumentErrors;
+
+    private final HandledError dateTimeParseErrors;
+
+    private final HandledError messageNotReadableErrors;
+
+    private final HandledError methodArgumentNotValidErrors;
+
+    private final HandledError serverWebInputErrors;
+
+    private final HandledError versionConflictErrors;
+
+    private final HandledError preconditionFailedErrors;
+
+    private final HandledError internalServerErrors;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        validationErrors = new HandledError(meterRegistry, "validation", true);
+        userNotFoundErrors = new HandledError(meterRegistry, "user_not_found", true);
+        illegalArgumentErrors = new HandledError(meterRegistry, "illegal_argument", true);
+        dateTimeParseErrors = new HandledError(meterRegistry, "date_time_parse", true);
+        messageNotReadableErrors = new HandledError(meterRegistry, "message_not_readable", true);
+        methodArgumentNotValidErrors = new HandledError(meterRegistry, "method_argument_not_valid", true);
+        serverWebInputErrors = new HandledError(meterRegistry, "server_web_input", true);
+        versionConflictErrors = new HandledError(meterRegistry, "version_conflict", true);
+        preconditionFailedErrors = new HandledError(meterRegistry, "precondition_failed", true);
+        internalServerErrors = new HandledError(meterRegistry, "internal_server_error", false);
+    }
+
     @ExceptionHandler(ValidationException.class)
     public ResponseEntity<Map<String, Object>> handleValidationException(ValidationException exception) {
-        log.warn(exception.getMessage(), exception);
+        validationErrors.handle(exception);
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(body("Validation error", "errors", exception.getErrors()));
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "Validation error");
-        response.put("errors", exception.getErrors());
+    @ExceptionHandler(UserNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleUserNotFoundException(UserNotFoundException exception) {
+        userNotFoundErrors.handle(exception);
 
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(USER_NOT_FOUND_BODY);
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, Object>> handleIllegalArgumentException(IllegalArgumentException exception) {
-        log.warn(exception.getMessage(), exception);
+        illegalArgumentErrors.handle(exception);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "Bad request");
-        response.put("errors", exception.getMessage());
-
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(body("Bad request", "errors", exception.getMessage()));
     }
 
     @ExceptionHandler(DateTimeParseException.class)
     public ResponseEntity<Map<String, Object>> handleDateTimeParseException(DateTimeParseException exception) {
-        log.warn(exception.getMessage(), exception);
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "Wrong date/time format");
-        response.put("details", "Please use yyyy-mm-dd format");
-        response.put("error", exception.getMessage());
+        dateTimeParseErrors.handle(exception);
 
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(body("Wrong date/time format", "details", "Please use yyyy-mm-dd format",
+                        "error", exception.getMessage()));
     }
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<Map<String, Object>> handleHttpMessageNotReadableException
             (HttpMessageNotReadableException exception){
-        log.warn(exception.getMessage(), exception);
+        messageNotReadableErrors.handle(exception);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "Bad request");
-        response.put("details", "Wrong date/time format");
-        response.put("error", exception.getMessage());
-
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(body("Bad request", "details", "Wrong date/time format", "error", exception.getMessage()));
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleMethodArgumentNotValid(MethodArgumentNotValidException ex) {
-        log.warn(ex.getMessage(), ex);
+        methodArgumentNotValidErrors.handle(ex);
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(body("Validation error", "errors", ex.getBindingResult().getAllErrors()));
+    }
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleVersionConflictException(VersionConflictException exception) {
+        versionConflictErrors.handle(exception);
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(body("Conflict", "error", exception.getMessage(), "version", exception.getActualVersion()));
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "Validation error");
-        response.put("errors", ex.getBindingResult().getAllErrors());
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Map<String, Object>> handlePreconditionFailedException
+            (PreconditionFailedException exception) {
+        preconditionFailedErrors.handle(exception);
 
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(body("Precondition failed", "error", exception.getMessage()));
+    }
+
+    /**
+     * WebFlux reports unreadable bodies and unconvertible request parameters with this exception.
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<Map<String, Object>> handleServerWebInputException(ServerWebInputException exception) {
+        serverWebInputErrors.handle(exception);
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(body("Bad request", "error", exception.getReason()));
     }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleInternalServerError(Exception exception) {
-        log.warn(exception.getMessage(), exception);
+        internalServerErrors.handle(exception);
+
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(body("Internal server error", "error", exception.getMessage()));
+    }
+
+    /**
+     * Builds the body with {@link Map#of}. Map.of rejects null values, so a missing exception message
+     * falls back to a HashMap and is still rendered as a JSON null.
+     */
+    private static Map<String, Object> body(String message, String key, Object value) {
+        if (value != null) {
+            return Map.of("message", message, key, value);
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", message);
+        body.put(key, null);
+        return body;
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "Internal server error");
-        response.put("error", exception.getMessage());
+    private static Map<String, Object> body(String message, String key, Object value,
+                                            String otherKey, Object otherValue) {
+        if (value != null && otherValue != null) {
+            return Map.of("message", message, key, value, otherKey, otherValue);
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", message);
+        body.put(key, value);
+        body.put(otherKey, otherValue);
+        return body;
+    }
 
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    private static final class HandledError {
+
+        private final Counter counter;
+
+        private final LogRateLimiter logRateLimiter = new LogRateLimiter(LOGS_PER_SECOND);
+
+        private final boolean clientError;
+
+        private HandledError(MeterRegistry meterRegistry, String type, boolean clientError) {
+            this.counter = Counter.builder("users.errors")
+                    .description("Errors handled by GlobalExceptionHandler")
+                    .tag("type", type)
+                    .register(meterRegistry);
+            this.clientError = clientError;
+        }
+
+        void handle(Exception exception) {
+            counter.increment();
+
+            long skipped = logRateLimiter.tryAcquire();
+            if (skipped < 0) {
+                return;
+            }
+            String message = skipped == 0
+                    ? exception.getMessage()
+                    : exception.getMessage() + " (" + skipped + " similar errors not logged)";
+            if (clientError && !log.isDebugEnabled()) {
+                log.warn(message);
+            } else {
+                log.warn(message, exception);
+            }
+        }
     }
 }
\ No newline at end of file
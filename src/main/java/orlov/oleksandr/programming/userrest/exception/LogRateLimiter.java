@@ -0,0 +1,52 @@
+package orlov.oleksandr.programming.userrest.exception;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets through the first {@code permitsPerSecond} log statements of every second and counts the rest, so
+ * a flood of the same error costs a counter increment instead of a log line.
+ */
+final class LogRateLimiter {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final int permitsPerSecond;
+
+    private final LongSupplier nanoTime;
+
+    private final AtomicLong second = new AtomicLong(Long.MIN_VALUE);
+
+    private final AtomicInteger permits = new AtomicInteger();
+
+    private final LongAdder skipped = new LongAdder();
+
+    LogRateLimiter(int permitsPerSecond) {
+        this(permitsPerSecond, System::nanoTime);
+    }
+
+    LogRateLimiter(int permitsPerSecond, LongSupplier nanoTime) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @return -1 if the statement should be skipped, otherwise the number of statements skipped since
+     * the last one that was let through
+     */
+    long tryAcquire() {
+        long now = nanoTime.getAsLong() / NANOS_PER_SECOND;
+        long current = second.get();
+        if (now != current && second.compareAndSet(current, now)) {
+            permits.set(0);
+        }
+
+        if (permits.incrementAndGet() > permitsPerSecond) {
+            skipped.increment();
+            return -1;
+        }
+        return skipped.sumThenReset();
+    }
+}
@@ -0,0 +1,10 @@
+package orlov.oleksandr.programming.userrest.exception;
+
+/**
+ * The If-Match precondition of a request doesn't match the stored user.
+ */
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message, Throwable cause) {
+        super(message, cause, false, false);
+    }
+}
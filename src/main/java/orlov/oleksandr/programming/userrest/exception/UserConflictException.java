@@ -0,0 +1,10 @@
+package orlov.oleksandr.programming.userrest.exception;
+
+/**
+ * A user with the same email already exists.
+ */
+public class UserConflictException extends UserRequestException {
+    public UserConflictException(String email) {
+        super("User already exists with email: " + email);
+    }
+}
@@ -0,0 +1,9 @@
+package orlov.oleksandr.programming.userrest.exception;
+
+public class UserNotFoundException extends UserRequestException {
+    public static final String MESSAGE = "User not found";
+
+    public UserNotFoundException() {
+        super(MESSAGE);
+    }
+}
@@ -0,0 +1,16 @@
+package orlov.oleksandr.programming.userrest.exception;
+
+/**
+ * A request the service rejects because of the data in it. These are thrown for every bad request and are
+ * reported by message only, so they don't capture a stack trace.
+ */
+public class UserRequestException extends IllegalArgumentException {
+    public UserRequestException(String message) {
+        super(message);
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -6,7 +6,7 @@ public class ValidationException extends RuntimeException {
     private final Map<String, String> errors;
 
     public ValidationException(Map<String, String> errors) {
-        super("Validation failed");
+        super("Validation failed: " + errors, null, false, false);
         this.errors = errors;
     }
 
@@ -0,0 +1,33 @@
+package orlov.oleksandr.programming.userrest.exception;
+
+/**
+ * The stored user has a different version than the one the write was based on. Doesn't capture a stack trace,
+ * like {@link UserRequestException}.
+ */
+public class VersionConflictException extends RuntimeException {
+    private final String email;
+
+    private final long expectedVersion;
+
+    private final long actualVersion;
+
+    public VersionConflictException(String email, long expectedVersion, long actualVersion) {
+        super("Version conflict for user " + email + ": expected " + expectedVersion + ", actual " + actualVersion,
+                null, false, false);
+        this.email = email;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public long getActualVersion() {
+        return actualVersion;
+    }
+}
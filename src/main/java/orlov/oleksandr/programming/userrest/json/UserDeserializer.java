@@ -0,0 +1,105 @@
+package orlov.oleksandr.programming.userrest.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import orlov.oleksandr.programming.userrest.model.User;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Reads a user field by field from the token stream. Values of the usual types are read directly, anything
+ * else (coercions, unusual date formats, invalid values) is passed to the standard deserializers, so errors
+ * and unknown properties are handled as for the bean.
+ */
+final class UserDeserializer extends StdDeserializer<User> {
+
+    UserDeserializer() {
+        super(User.class);
+    }
+
+    @Override
+    public User deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (User) context.handleUnexpectedToken(User.class, parser);
+        }
+
+        User user = new User();
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "email" -> user.setEmail(readString(parser, context));
+                case "firstName" -> user.setFirstName(readString(parser, context));
+                case "lastName" -> user.setLastName(readString(parser, context));
+                case "birthDate" -> user.setBirthDate(readDate(parser, context));
+                case "address" -> user.setAddress(readString(parser, context));
+                case "phoneNumber" -> user.setPhoneNumber(readString(parser, context));
+                case "version" -> user.setVersion(readLong(parser, context));
+                default -> context.handleUnknownProperty(parser, this, User.class, name);
+            }
+        }
+        return user;
+    }
+
+    private static String readString(JsonParser parser, DeserializationContext context) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NULL -> null;
+            default -> context.readValue(parser, String.class);
+        };
+    }
+
+    private static Long readLong(JsonParser parser, DeserializationContext context) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT -> parser.getLongValue();
+            case VALUE_NULL -> null;
+            default -> context.readValue(parser, Long.class);
+        };
+    }
+
+    /**
+     * Reads {@code yyyy-MM-dd} from the parser's buffer without building a string.
+     */
+    private static LocalDate readDate(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (parser.currentToken() == JsonToken.VALUE_STRING && parser.getTextLength() == 10) {
+            char[] text = parser.getTextCharacters();
+            int offset = parser.getTextOffset();
+            int year = digits(text, offset, 4);
+            int month = digits(text, offset + 5, 2);
+            int day = digits(text, offset + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0 && text[offset + 4] == '-' && text[offset + 7] == '-') {
+                try {
+                    return LocalDate.of(year, month, day);
+                } catch (DateTimeException e) {
+                    // Out of range, reported by the standard deserializer below
+                }
+            }
+        }
+        return context.readValue(parser, LocalDate.class);
+    }
+
+    /**
+     * @return the decimal value of the digits, or -1 if one of the characters isn't a digit
+     */
+    private static int digits(char[] text, int offset, int length) {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            char c = text[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,19 @@
+package orlov.oleksandr.programming.userrest.json;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.springframework.stereotype.Component;
+import orlov.oleksandr.programming.userrest.model.User;
+
+/**
+ * Reads and writes {@link User} with hand-written (de)serializers instead of bean introspection. The JSON is
+ * the same as Jackson produces for the bean with the JSR-310 module and ISO dates.
+ */
+@Component
+public class UserJsonModule extends SimpleModule {
+
+    public UserJsonModule() {
+        super("UserJsonModule");
+        addSerializer(User.class, new UserSerializer());
+        addDeserializer(User.class, new UserDeserializer());
+    }
+}
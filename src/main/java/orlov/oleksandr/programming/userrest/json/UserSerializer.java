@@ -0,0 +1,94 @@
+package orlov.oleksandr.programming.userrest.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import orlov.oleksandr.programming.userrest.model.User;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Writes the fields of a user in declaration order with pre-encoded names. Birth dates are written as
+ * ISO strings that are encoded once per date and then reused.
+ */
+final class UserSerializer extends StdSerializer<User> {
+
+    static final SerializedString EMAIL = new SerializedString("email");
+
+    static final SerializedString FIRST_NAME = new SerializedString("firstName");
+
+    static final SerializedString LAST_NAME = new SerializedString("lastName");
+
+    static final SerializedString BIRTH_DATE = new SerializedString("birthDate");
+
+    static final SerializedString ADDRESS = new SerializedString("address");
+
+    static final SerializedString PHONE_NUMBER = new SerializedString("phoneNumber");
+
+    static final SerializedString VERSION = new SerializedString("version");
+
+    private static final long FIRST_CACHED_DAY = LocalDate.of(1900, 1, 1).toEpochDay();
+
+    /**
+     * Encoded dates from 1900 to 2099 by day, filled on first use. Racing writers store equal strings.
+     */
+    private static final SerializedString[] DATES =
+            new SerializedString[(int) (LocalDate.of(2100, 1, 1).toEpochDay() - FIRST_CACHED_DAY)];
+
+    UserSerializer() {
+        super(User.class);
+    }
+
+    @Override
+    public void serialize(User user, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(user);
+        writeString(generator, EMAIL, user.getEmail());
+        writeString(generator, FIRST_NAME, user.getFirstName());
+        writeString(generator, LAST_NAME, user.getLastName());
+
+        generator.writeFieldName(BIRTH_DATE);
+        if (user.getBirthDate() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(isoDate(user.getBirthDate()));
+        }
+
+        writeString(generator, ADDRESS, user.getAddress());
+        writeString(generator, PHONE_NUMBER, user.getPhoneNumber());
+
+        generator.writeFieldName(VERSION);
+        if (user.getVersion() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(user.getVersion());
+        }
+        generator.writeEndObject();
+    }
+
+    static SerializableString isoDate(LocalDate date) {
+        long index = date.toEpochDay() - FIRST_CACHED_DAY;
+        if (index < 0 || index >= DATES.length) {
+            return new SerializedString(date.toString());
+        }
+
+        SerializedString cached = DATES[(int) index];
+        if (cached == null) {
+            cached = new SerializedString(date.toString());
+            DATES[(int) index] = cached;
+        }
+        return cached;
+    }
+
+    private static void writeString(JsonGenerator generator, SerializableString name, String value)
+            throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value);
+        }
+    }
+}
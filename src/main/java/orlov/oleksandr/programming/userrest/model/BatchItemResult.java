@@ -0,0 +1,28 @@
+package orlov.oleksandr.programming.userrest.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of one item of a batch request. Results are returned in the same order as the request items.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    private final String email;
+
+    private final BatchItemStatus status;
+
+    private final String message;
+
+    public static BatchItemResult of(User user, BatchItemStatus status) {
+        return new BatchItemResult(user.getEmail(), status, null);
+    }
+
+    public static BatchItemResult of(User user, BatchItemStatus status, String message) {
+        return new BatchItemResult(user == null ? null : user.getEmail(), status, message);
+    }
+}
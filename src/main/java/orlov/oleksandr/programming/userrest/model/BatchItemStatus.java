@@ -0,0 +1,10 @@
+package orlov.oleksandr.programming.userrest.model;
+
+public enum BatchItemStatus {
+    CREATED,
+    UPDATED,
+    DELETED,
+    CONFLICT,
+    NOT_FOUND,
+    INVALID
+}
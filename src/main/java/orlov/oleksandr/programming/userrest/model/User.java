@@ -35,14 +35,22 @@ public class User {
 
     private String phoneNumber;
 
-    @Builder
-    public User(String email, String firstName, String lastName, LocalDate birthDate, String address, String phoneNumber) {
+    /**
+     * Assigned by the service on every write and exposed as the ETag. A non-null version in a write request
+     * is the version the client expects to replace. Not part of {@link #equals}, which compares user data only.
+     */
+    private Long version;
+
+    @Builder(toBuilder = true)
+    public User(String email, String firstName, String lastName, LocalDate birthDate, String address, String phoneNumber,
+                Long version) {
         this.email = email;
         this.firstName = firstName;
         this.lastName = lastName;
         this.birthDate = birthDate;
         this.address = address;
         this.phoneNumber = phoneNumber;
+        this.version = version;
     }
 
     @Override
@@ -76,6 +84,7 @@ public class User {
                 ", birthDate=" + birthDate +
                 ", address='" + address + '\'' +
                 ", phoneNumber='" + phoneNumber + '\'' +
+                ", version=" + version +
                 '}';
     }
 }
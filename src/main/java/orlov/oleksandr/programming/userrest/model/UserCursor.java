@@ -0,0 +1,37 @@
+package orlov.oleksandr.programming.userrest.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Keyset position in the (birthDate, email) order. Clients only see it as an opaque URL-safe string.
+ */
+public record UserCursor(LocalDate birthDate, String email) {
+
+    private static final char SEPARATOR = ':';
+
+    public static UserCursor of(User user) {
+        return new UserCursor(user.getBirthDate(), user.getEmail());
+    }
+
+    public static UserCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            LocalDate birthDate = LocalDate.ofEpochDay(Long.parseLong(decoded, 0, separator, 10));
+            return new UserCursor(birthDate, decoded.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public String encode() {
+        String raw = birthDate.toEpochDay() + String.valueOf(SEPARATOR) + email;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
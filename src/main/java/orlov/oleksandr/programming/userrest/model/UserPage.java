@@ -0,0 +1,18 @@
+package orlov.oleksandr.programming.userrest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of a range query. {@code nextCursor} is null when there are no more users in the range.
+ */
+@Getter
+@AllArgsConstructor
+public class UserPage {
+
+    private final List<User> users;
+
+    private final String nextCursor;
+}
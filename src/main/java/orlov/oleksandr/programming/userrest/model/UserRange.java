@@ -0,0 +1,20 @@
+package orlov.oleksandr.programming.userrest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * All users of a birth date range. {@code tag} is derived from the emails and versions of the users, so it
+ * changes when a user enters or leaves the range or is updated, and stays the same otherwise. Versions are never
+ * reused for an email, so a user deleted and created again changes the tag too.
+ */
+@Getter
+@AllArgsConstructor
+public class UserRange {
+
+    private final List<User> users;
+
+    private final long tag;
+}
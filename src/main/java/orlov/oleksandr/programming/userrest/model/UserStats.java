@@ -0,0 +1,20 @@
+package orlov.oleksandr.programming.userrest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Number of stored users, split by whether they are at least {@code minimalAge} years old today.
+ */
+@Getter
+@AllArgsConstructor
+public class UserStats {
+
+    private final long count;
+
+    private final long eligible;
+
+    private final long ineligible;
+
+    private final int minimalAge;
+}
@@ -0,0 +1,49 @@
+package orlov.oleksandr.programming.userrest.service;
+
+import orlov.oleksandr.programming.userrest.model.BatchItemResult;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserPage;
+import orlov.oleksandr.programming.userrest.model.UserStats;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of {@link UserService}: the same operations and errors, delivered as signals.
+ */
+public interface ReactiveUserService {
+    Mono<User> create(User user);
+
+    Mono<User> update(User user);
+
+    Mono<User> partialUpdate(User user);
+
+    Mono<Void> delete(User user);
+
+    Mono<List<BatchItemResult>> createAll(List<User> users);
+
+    Mono<List<BatchItemResult>> updateAll(List<User> users);
+
+    Mono<List<BatchItemResult>> deleteAll(List<User> users);
+
+    /**
+     * Emits users in the range in birth date order, only as many as the subscriber has requested.
+     */
+    Flux<User> getUsersWithBirthDateInBetween(LocalDate from, LocalDate to);
+
+    Mono<UserPage> getUsersWithBirthDateInBetween(LocalDate from, LocalDate to, String cursor, int limit);
+
+    Mono<User> getUserByEmail(String email);
+
+    Mono<UserStats> getStats();
+
+    Mono<Map<Integer, Long>> getBirthYearHistogram();
+
+    Mono<Map<YearMonth, Long>> getBirthMonthHistogram();
+
+    Mono<List<User>> searchUsers(String lastName, String email, String address, int limit);
+}
@@ -1,21 +1,77 @@
 package orlov.oleksandr.programming.userrest.service;
 
+import orlov.oleksandr.programming.userrest.model.BatchItemResult;
 import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserPage;
+import orlov.oleksandr.programming.userrest.model.UserRange;
+import orlov.oleksandr.programming.userrest.model.UserStats;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public interface UserService {
+
+    /**
+     * Most users a batch operation accepts.
+     */
+    int MAX_BATCH_SIZE = 10_000;
+
     User create(User user);
 
     User update(User user);
 
-    User partialUpdate(User user) throws IllegalAccessException;
+    User partialUpdate(User user);
 
     void delete(User user);
 
+    List<BatchItemResult> createAll(List<User> users);
+
+    List<BatchItemResult> updateAll(List<User> users);
+
+    List<BatchItemResult> deleteAll(List<User> users);
+
     List<User> getUsersWithBirthDateInBetween(LocalDate from, LocalDate to);
 
+    /**
+     * Same users as {@link #getUsersWithBirthDateInBetween(LocalDate, LocalDate)} with a tag of the result.
+     * Results are cached until a write touches the range.
+     */
+    UserRange getUserRange(LocalDate from, LocalDate to);
+
+    /**
+     * Lazily streams users in the range in birth date order, without materializing the result.
+     * The range is validated eagerly, before the stream is returned.
+     */
+    Stream<User> streamUsersWithBirthDateInBetween(LocalDate from, LocalDate to);
+
+    UserPage getUsersWithBirthDateInBetween(LocalDate from, LocalDate to, String cursor, int limit);
+
     User getUserByEmail(String email);
+
+    /**
+     * Statistics below are maintained on every write and cost the number of buckets, not a scan of the users.
+     */
+    UserStats getStats();
+
+    /**
+     * Searches by exactly one of: last name prefix, email prefix or words that all appear in the address,
+     * ignoring case. Served from an index kept up to date on every write, so the cost is in the number of
+     * results, not of users.
+     *
+     * @return at most limit users, by last name or email for prefix searches
+     */
+    List<User> searchUsers(String lastName, String email, String address, int limit);
+
+    /**
+     * @return number of users by birth year, in year order
+     */
+    Map<Integer, Long> getBirthYearHistogram();
+
+    /**
+     * @return number of users by birth month, in month order
+     */
+    Map<YearMonth, Long> getBirthMonthHistogram();
 }
@@ -0,0 +1,69 @@
+package orlov.oleksandr.programming.userrest.service.impl;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * The latest birth date of a user who is at least {@code minimal.age} years old today, and today itself.
+ * <p>
+ * Both are computed once per day, at midnight and whenever a check finds the clock already past the day they
+ * were computed for, so a check is a comparison of epoch days and a read of the clock's millis.
+ */
+@Component
+public class BirthDateCutoff {
+
+    private final int minimalAge;
+
+    private final Clock clock;
+
+    private volatile Cutoff cutoff;
+
+    public BirthDateCutoff(int minimalAge, Clock clock) {
+        this.minimalAge = minimalAge;
+        this.clock = clock;
+        refresh();
+    }
+
+    public int getMinimalAge() {
+        return minimalAge;
+    }
+
+    public boolean isOldEnough(LocalDate birthDate) {
+        return birthDate.toEpochDay() <= current().latestBirthDay();
+    }
+
+    /**
+     * @return epoch day of the latest birth date that is old enough today
+     */
+    long latestBirthDay() {
+        return current().latestBirthDay();
+    }
+
+    public boolean isInPast(LocalDate date) {
+        return date.toEpochDay() < current().today();
+    }
+
+    @Scheduled(cron = "0 0 0 * * *")
+    public void refreshDaily() {
+        refresh();
+    }
+
+    private Cutoff current() {
+        Cutoff current = cutoff;
+        return clock.millis() < current.validUntilMillis() ? current : refresh();
+    }
+
+    private Cutoff refresh() {
+        LocalDate today = LocalDate.now(clock);
+        long validUntilMillis = today.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+        Cutoff refreshed = new Cutoff(today.toEpochDay(), today.minusYears(minimalAge).toEpochDay(), validUntilMillis);
+        cutoff = refreshed;
+        return refreshed;
+    }
+
+    private record Cutoff(long today, long latestBirthDay, long validUntilMillis) {
+    }
+}
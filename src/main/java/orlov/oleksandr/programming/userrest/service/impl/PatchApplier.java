@@ -0,0 +1,103 @@
+package orlov.oleksandr.programming.userrest.service.impl;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Merges the non-null properties of a patch into a fresh copy of a base object.
+ * Constructor, getters and setters are bound once per class through {@link LambdaMetafactory},
+ * so applying a patch is a loop over plain interface calls with no reflection on the request path.
+ */
+public final class PatchApplier<T> {
+
+    private final Supplier<T> constructor;
+
+    private final List<Property<T>> properties;
+
+    private PatchApplier(Supplier<T> constructor, List<Property<T>> properties) {
+        this.constructor = constructor;
+        this.properties = properties;
+    }
+
+    public static <T> PatchApplier<T> forClass(Class<T> type) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            Supplier<T> constructor = bindConstructor(lookup, type);
+
+            List<Property<T>> properties = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                if (field.getType().isPrimitive()) {
+                    throw new IllegalStateException("Primitive property can't be patched: " + field.getName());
+                }
+                properties.add(new Property<>(bindGetter(lookup, type, field), bindSetter(lookup, type, field)));
+            }
+            return new PatchApplier<>(constructor, List.copyOf(properties));
+        } catch (Throwable e) {
+            throw new IllegalStateException("Can't build patch applier for " + type.getName(), e);
+        }
+    }
+
+    /**
+     * @return a new instance holding the patch value for every non-null property of the patch
+     * and the base value for every other property; neither argument is modified
+     */
+    public T merge(T base, T patch) {
+        T result = constructor.get();
+        for (Property<T> property : properties) {
+            Object value = property.getter().apply(patch);
+            property.setter().accept(result, value != null ? value : property.getter().apply(base));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> bindConstructor(MethodHandles.Lookup lookup, Class<T> type) throws Throwable {
+        MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, "get",
+                MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+                constructor, MethodType.methodType(type));
+        return (Supplier<T>) callSite.getTarget().invoke();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Function<T, Object> bindGetter(MethodHandles.Lookup lookup, Class<T> type, Field field)
+            throws Throwable {
+        MethodHandle getter = lookup.findVirtual(type, "get" + capitalize(field.getName()),
+                MethodType.methodType(field.getType()));
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply",
+                MethodType.methodType(Function.class), MethodType.methodType(Object.class, Object.class),
+                getter, MethodType.methodType(field.getType(), type));
+        return (Function<T, Object>) callSite.getTarget().invoke();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> BiConsumer<T, Object> bindSetter(MethodHandles.Lookup lookup, Class<T> type, Field field)
+            throws Throwable {
+        MethodHandle setter = lookup.findVirtual(type, "set" + capitalize(field.getName()),
+                MethodType.methodType(void.class, field.getType()));
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, "accept",
+                MethodType.methodType(BiConsumer.class), MethodType.methodType(void.class, Object.class, Object.class),
+                setter, MethodType.methodType(void.class, type, field.getType()));
+        return (BiConsumer<T, Object>) callSite.getTarget().invoke();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private record Property<T>(Function<T, Object> getter, BiConsumer<T, Object> setter) {
+    }
+}
@@ -0,0 +1,121 @@
+package orlov.oleksandr.programming.userrest.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import orlov.oleksandr.programming.userrest.model.BatchItemResult;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserPage;
+import orlov.oleksandr.programming.userrest.model.UserStats;
+import orlov.oleksandr.programming.userrest.service.ReactiveUserService;
+import orlov.oleksandr.programming.userrest.service.UserService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Adapts {@link UserService} to Reactor. Every call reaches the store, which may block: writes wait for
+ * the write-ahead log when persistence is enabled, range reads may scan a large part of the store, and
+ * with the off-heap store even a point read takes its read lock. So all of them are moved off the event
+ * loop to {@link Schedulers#boundedElastic()}.
+ */
+@Service
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+    private final UserService userService;
+
+    private final Scheduler storeScheduler;
+
+    @Autowired
+    public ReactiveUserServiceImpl(UserService userService) {
+        this(userService, Schedulers.boundedElastic());
+    }
+
+    ReactiveUserServiceImpl(UserService userService, Scheduler storeScheduler) {
+        this.userService = userService;
+        this.storeScheduler = storeScheduler;
+    }
+
+    @Override
+    public Mono<User> create(User user) {
+        return call(() -> userService.create(user));
+    }
+
+    @Override
+    public Mono<User> update(User user) {
+        return call(() -> userService.update(user));
+    }
+
+    @Override
+    public Mono<User> partialUpdate(User user) {
+        return call(() -> userService.partialUpdate(user));
+    }
+
+    @Override
+    public Mono<Void> delete(User user) {
+        return Mono.fromRunnable(() -> userService.delete(user))
+                .subscribeOn(storeScheduler)
+                .then();
+    }
+
+    @Override
+    public Mono<List<BatchItemResult>> createAll(List<User> users) {
+        return call(() -> userService.createAll(users));
+    }
+
+    @Override
+    public Mono<List<BatchItemResult>> updateAll(List<User> users) {
+        return call(() -> userService.updateAll(users));
+    }
+
+    @Override
+    public Mono<List<BatchItemResult>> deleteAll(List<User> users) {
+        return call(() -> userService.deleteAll(users));
+    }
+
+    @Override
+    public Flux<User> getUsersWithBirthDateInBetween(LocalDate from, LocalDate to) {
+        return Flux.defer(() -> Flux.fromStream(userService.streamUsersWithBirthDateInBetween(from, to)))
+                .subscribeOn(storeScheduler);
+    }
+
+    @Override
+    public Mono<UserPage> getUsersWithBirthDateInBetween(LocalDate from, LocalDate to, String cursor, int limit) {
+        return call(() -> userService.getUsersWithBirthDateInBetween(from, to, cursor, limit));
+    }
+
+    @Override
+    public Mono<User> getUserByEmail(String email) {
+        return call(() -> userService.getUserByEmail(email));
+    }
+
+    @Override
+    public Mono<UserStats> getStats() {
+        return call(userService::getStats);
+    }
+
+    @Override
+    public Mono<Map<Integer, Long>> getBirthYearHistogram() {
+        return call(userService::getBirthYearHistogram);
+    }
+
+    @Override
+    public Mono<Map<YearMonth, Long>> getBirthMonthHistogram() {
+        return call(userService::getBirthMonthHistogram);
+    }
+
+    @Override
+    public Mono<List<User>> searchUsers(String lastName, String email, String address, int limit) {
+        return call(() -> userService.searchUsers(lastName, email, address, limit));
+    }
+
+    private <T> Mono<T> call(Supplier<T> operation) {
+        return Mono.fromSupplier(operation).subscribeOn(storeScheduler);
+    }
+}
@@ -0,0 +1,230 @@
+package orlov.oleksandr.programming.userrest.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserRange;
+import orlov.oleksandr.programming.userrest.store.RangeScanner;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches whole birth date ranges by (from, to).
+ * <p>
+ * A write drops only the cached ranges that contain the old or the new birth date of the written user,
+ * as no other range can have changed. A range is registered before it is read from the store, so a write
+ * that completes during the read drops it too and the possibly outdated result is never cached.
+ * <p>
+ * The cache is bounded by the total number of cached users rather than ranges, so a few wide ranges can't hold
+ * the whole store. An entry weighs one until it is read and is reweighed once filled; a range with more users
+ * than the whole bound is not cached at all. The number of ranges is bounded separately, so many tiny ranges
+ * can't make the index that writes search grow with the user bound.
+ * <p>
+ * Writes find the ranges to drop through an index ordered by width class, the power of two above the number
+ * of days a range spans, and then by its first day. A range of class {@code k} that contains a date starts at
+ * most {@code 2^(k+1)} days before it, so a write only visits the ranges of each class that start in that
+ * window instead of every cached range.
+ */
+final class UserRangeCache {
+
+    private static final Comparator<Entry> INDEX_ORDER = Comparator.comparingInt((Entry entry) -> entry.widthClass)
+            .thenComparingLong(entry -> entry.fromDay)
+            .thenComparingLong(entry -> entry.id);
+
+    private final UserStore userStore;
+
+    private final RangeScanner scanner;
+
+    private final long maximumUsers;
+
+    private final int maximumRanges;
+
+    private final Cache<Range, Entry> ranges;
+
+    private final ConcurrentSkipListSet<Entry> index = new ConcurrentSkipListSet<>(INDEX_ORDER);
+
+    private final AtomicInteger indexSize = new AtomicInteger();
+
+    private final AtomicLong nextId = new AtomicLong();
+
+    /**
+     * Bit {@code k} is set once a range of width class {@code k} has been cached, so writes skip the classes
+     * that were never used.
+     */
+    private final AtomicLong widthClasses = new AtomicLong();
+
+    UserRangeCache(UserStore userStore, RangeScanner scanner, long maximumUsers, int maximumRanges) {
+        this.userStore = userStore;
+        this.scanner = scanner;
+        this.maximumUsers = maximumUsers;
+        this.maximumRanges = maximumRanges;
+        this.ranges = Caffeine.newBuilder()
+                .maximumWeight(maximumUsers)
+                .weigher((Range range, Entry entry) -> entry.weight())
+                .evictionListener((Range range, Entry entry, RemovalCause cause) -> unindex(entry))
+                .build();
+        userStore.addListener(this::onWrite);
+    }
+
+    UserRange get(LocalDate from, LocalDate to) {
+        Range range = new Range(from, to);
+        Entry entry = ranges.get(range, key -> index(new Entry(key, nextId.incrementAndGet())));
+        UserRange cached = entry.users;
+        if (cached != null) {
+            return cached;
+        }
+        trimRanges();
+
+        List<User> users = scanner.copy(userStore, from, to);
+        UserRange loaded = new UserRange(users, tag(users));
+        if (users.size() > maximumUsers) {
+            drop(entry);
+        } else {
+            entry.users = loaded;
+            ranges.asMap().replace(range, entry, entry);
+        }
+        return loaded;
+    }
+
+    int size() {
+        return indexSize.get();
+    }
+
+    /**
+     * Runs under the store's lock for the written email, so it only visits the indexed ranges that may contain
+     * one of the birth dates.
+     */
+    private void onWrite(User oldUser, User newUser) {
+        LocalDate oldBirthDate = oldUser == null ? null : oldUser.getBirthDate();
+        LocalDate newBirthDate = newUser == null ? null : newUser.getBirthDate();
+
+        dropContaining(oldBirthDate);
+        if (newBirthDate != null && !newBirthDate.equals(oldBirthDate)) {
+            dropContaining(newBirthDate);
+        }
+    }
+
+    private void dropContaining(LocalDate date) {
+        if (date == null) {
+            return;
+        }
+        long day = date.toEpochDay();
+        long classes = widthClasses.get();
+        for (int widthClass = 0; classes >>> widthClass != 0; widthClass++) {
+            if ((classes >>> widthClass & 1) == 0) {
+                continue;
+            }
+            long firstDay = day - (1L << (widthClass + 1)) + 2;
+            for (Entry entry : index.subSet(Entry.probe(widthClass, firstDay, Long.MIN_VALUE), true,
+                    Entry.probe(widthClass, day, Long.MAX_VALUE), true)) {
+                if (entry.range.contains(date)) {
+                    drop(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Evicts the coldest ranges while there are more than {@code maximumRanges}. Runs outside of the cache's
+     * mapping function, which must not change other entries.
+     */
+    private void trimRanges() {
+        while (indexSize.get() > maximumRanges) {
+            Map<Range, Entry> coldest = ranges.policy().eviction().orElseThrow().coldest(1);
+            if (coldest.isEmpty()) {
+                return;
+            }
+            coldest.values().forEach(this::drop);
+        }
+    }
+
+    private Entry index(Entry entry) {
+        index.add(entry);
+        indexSize.incrementAndGet();
+        widthClasses.accumulateAndGet(1L << entry.widthClass, (classes, bit) -> classes | bit);
+        return entry;
+    }
+
+    private void drop(Entry entry) {
+        ranges.asMap().remove(entry.range, entry);
+        unindex(entry);
+    }
+
+    private void unindex(Entry entry) {
+        if (index.remove(entry)) {
+            indexSize.decrementAndGet();
+        }
+    }
+
+    private static long tag(List<User> users) {
+        long tag = users.size();
+        for (User user : users) {
+            tag = 31 * tag + user.getEmail().hashCode();
+            tag = 31 * tag + Objects.hashCode(user.getVersion());
+        }
+        return tag;
+    }
+
+    private record Range(LocalDate from, LocalDate to) {
+
+        boolean contains(LocalDate date) {
+            return date != null && !date.isBefore(from) && !date.isAfter(to);
+        }
+    }
+
+    /**
+     * Holds the range once it is read. Entries that are dropped while being read are only filled for the
+     * readers that already hold them.
+     */
+    private static final class Entry {
+
+        private final Range range;
+
+        private final int widthClass;
+
+        private final long fromDay;
+
+        /**
+         * Tells apart the entries of one range that was dropped and cached again.
+         */
+        private final long id;
+
+        private volatile UserRange users;
+
+        private Entry(Range range, long id) {
+            long span = Math.max(0, range.to().toEpochDay() - range.from().toEpochDay());
+            this.range = range;
+            this.widthClass = 63 - Long.numberOfLeadingZeros(span + 1);
+            this.fromDay = range.from().toEpochDay();
+            this.id = id;
+        }
+
+        private Entry(int widthClass, long fromDay, long id) {
+            this.range = null;
+            this.widthClass = widthClass;
+            this.fromDay = fromDay;
+            this.id = id;
+        }
+
+        /**
+         * A bound for searching the index, never stored in it.
+         */
+        static Entry probe(int widthClass, long fromDay, long id) {
+            return new Entry(widthClass, fromDay, id);
+        }
+
+        int weight() {
+            UserRange range = users;
+            return range == null ? 1 : Math.max(1, range.getUsers().size());
+        }
+    }
+}
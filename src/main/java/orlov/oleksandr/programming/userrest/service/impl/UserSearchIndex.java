@@ -0,0 +1,183 @@
+package orlov.oleksandr.programming.userrest.service.impl;
+
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Case-insensitive search over users, kept up to date by every write to the store.
+ * <p>
+ * Last names and emails are kept in sorted sets of {@code <lower-case value>\0<email>} keys, so the users with a
+ * prefix are the keys from the prefix on while they still start with it, read in O(log n) plus the number of
+ * results. Address words are kept in an inverted index from each word to the emails of the users whose address
+ * contains it.
+ * <p>
+ * Address words are added and removed with {@link ConcurrentMap#compute}, so a word whose last user is being
+ * removed can't drop a user that is added at the same time.
+ * <p>
+ * Results are lazy streams that look users up in the store one at a time and check them again, so a user
+ * rewritten during the search is returned as currently stored or not at all, and a limited search only
+ * reads as many users as it returns.
+ */
+final class UserSearchIndex {
+
+    private static final char SEPARATOR = '\0';
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final UserStore userStore;
+
+    private final NavigableSet<String> lastNames = new ConcurrentSkipListSet<>();
+
+    private final NavigableSet<String> emails = new ConcurrentSkipListSet<>();
+
+    private final ConcurrentMap<String, Set<String>> emailsByAddressWord = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes the users already in the store, so it must be created before writes start.
+     */
+    UserSearchIndex(UserStore userStore) {
+        this.userStore = userStore;
+        for (User user : userStore.findAll()) {
+            add(user);
+        }
+        userStore.addListener(this::onWrite);
+    }
+
+    /**
+     * @return users whose last name starts with the prefix, ordered by last name and email
+     */
+    Stream<User> byLastNamePrefix(String prefix) {
+        String normalized = normalize(prefix);
+        return usersWithPrefix(lastNames, normalized,
+                user -> user.getLastName() != null && normalize(user.getLastName()).startsWith(normalized));
+    }
+
+    /**
+     * @return users whose email starts with the prefix, ordered by email
+     */
+    Stream<User> byEmailPrefix(String prefix) {
+        String normalized = normalize(prefix);
+        return usersWithPrefix(emails, normalized, user -> normalize(user.getEmail()).startsWith(normalized));
+    }
+
+    /**
+     * @return users whose address contains every word of the text, in no particular order
+     */
+    Stream<User> byAddressWords(String text) {
+        Set<String> words = words(text);
+        if (words.isEmpty()) {
+            return Stream.empty();
+        }
+
+        Set<String> smallest = null;
+        for (String word : words) {
+            Set<String> users = emailsByAddressWord.get(word);
+            if (users == null) {
+                return Stream.empty();
+            }
+            if (smallest == null || users.size() < smallest.size()) {
+                smallest = users;
+            }
+        }
+        return users(smallest.stream(), user -> user.getAddress() != null && words(user.getAddress()).containsAll(words));
+    }
+
+    private Stream<User> usersWithPrefix(NavigableSet<String> index, String prefix, Predicate<User> matches) {
+        Stream<String> emailsWithPrefix = index.tailSet(prefix).stream()
+                .takeWhile(key -> key.startsWith(prefix))
+                .map(key -> key.substring(key.indexOf(SEPARATOR) + 1));
+        return users(emailsWithPrefix, matches);
+    }
+
+    private Stream<User> users(Stream<String> candidates, Predicate<User> matches) {
+        return candidates
+                .map(userStore::findByEmail)
+                .flatMap(Optional::stream)
+                .filter(matches);
+    }
+
+    /**
+     * Runs under the store's lock for the written email, so the entries of one user change in write order.
+     */
+    private void onWrite(User oldUser, User newUser) {
+        if (oldUser != null) {
+            remove(oldUser, newUser);
+        }
+        if (newUser != null) {
+            add(newUser);
+        }
+    }
+
+    private void add(User user) {
+        String email = user.getEmail();
+        if (user.getLastName() != null) {
+            lastNames.add(key(user.getLastName(), email));
+        }
+        emails.add(key(email, email));
+        if (user.getAddress() != null) {
+            for (String word : words(user.getAddress())) {
+                emailsByAddressWord.compute(word, (w, users) -> {
+                    Set<String> added = users != null ? users : ConcurrentHashMap.<String>newKeySet();
+                    added.add(email);
+                    return added;
+                });
+            }
+        }
+    }
+
+    /**
+     * Removes the entries of the old user that the new one, if any, doesn't have.
+     */
+    private void remove(User oldUser, User newUser) {
+        String email = oldUser.getEmail();
+        if (oldUser.getLastName() != null
+                && (newUser == null || !Objects.equals(oldUser.getLastName(), newUser.getLastName()))) {
+            lastNames.remove(key(oldUser.getLastName(), email));
+        }
+        if (newUser == null) {
+            emails.remove(key(email, email));
+        }
+        if (oldUser.getAddress() != null
+                && (newUser == null || !Objects.equals(oldUser.getAddress(), newUser.getAddress()))) {
+            Set<String> newWords = newUser == null || newUser.getAddress() == null
+                    ? Set.of()
+                    : words(newUser.getAddress());
+            for (String word : words(oldUser.getAddress())) {
+                if (!newWords.contains(word)) {
+                    emailsByAddressWord.computeIfPresent(word, (w, users) -> {
+                        users.remove(email);
+                        return users.isEmpty() ? null : users;
+                    });
+                }
+            }
+        }
+    }
+
+    private static String key(String value, String email) {
+        return normalize(value) + SEPARATOR + email;
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> words(String text) {
+        return Arrays.stream(WORD_SEPARATOR.split(normalize(text)))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toSet());
+    }
+}
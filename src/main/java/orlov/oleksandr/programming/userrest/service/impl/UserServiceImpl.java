@@ -1,109 +1,339 @@
 package orlov.oleksandr.programming.userrest.service.impl;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import orlov.oleksandr.programming.userrest.exception.AgeRestrictionException;
+import orlov.oleksandr.programming.userrest.exception.UserConflictException;
+import orlov.oleksandr.programming.userrest.exception.UserNotFoundException;
+import orlov.oleksandr.programming.userrest.exception.UserRequestException;
+import orlov.oleksandr.programming.userrest.exception.VersionConflictException;
+import orlov.oleksandr.programming.userrest.model.BatchItemResult;
+import orlov.oleksandr.programming.userrest.model.BatchItemStatus;
 import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserCursor;
+import orlov.oleksandr.programming.userrest.model.UserPage;
+import orlov.oleksandr.programming.userrest.model.UserRange;
+import orlov.oleksandr.programming.userrest.model.UserStats;
 import orlov.oleksandr.programming.userrest.service.UserService;
+import orlov.oleksandr.programming.userrest.store.RangeScanner;
+import orlov.oleksandr.programming.userrest.store.UserStore;
 
-import java.lang.reflect.Field;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
+@Timed(value = "users.service", description = "UserService method latency", histogram = true)
 public class UserServiceImpl implements UserService {
 
-    private List<User> users;
+    private static final PatchApplier<User> USER_PATCH_APPLIER = PatchApplier.forClass(User.class);
 
-    private int minimalAge;
+    private static final int MAX_PAGE_LIMIT = 1000;
 
-    public UserServiceImpl(int minimalAge) {
-        this.minimalAge = minimalAge;
-        users = new ArrayList<>();
+    private static final int DEFAULT_PAGE_CAPACITY = 100;
+
+    private static final int MAX_CACHED_RANGE_USERS = 100_000;
+
+    private static final int MAX_CACHED_RANGES = 10_000;
+
+    private final UserStore userStore;
+
+    private final UserRangeCache rangeCache;
+
+    private final UserStatistics statistics;
+
+    /**
+     * Null when search is disabled.
+     */
+    private final UserSearchIndex searchIndex;
+
+    private final BirthDateCutoff birthDateCutoff;
+
+    private final UserVersions versions;
+
+    public UserServiceImpl(BirthDateCutoff birthDateCutoff, UserStore userStore, RangeScanner rangeScanner) {
+        this(birthDateCutoff, userStore, rangeScanner, true);
+    }
+
+    /**
+     * @param searchEnabled whether to keep the search index, which holds a few hundred bytes of heap per user
+     *                      even when the store keeps users off-heap
+     */
+    @Autowired
+    public UserServiceImpl(BirthDateCutoff birthDateCutoff, UserStore userStore, RangeScanner rangeScanner,
+                           @Value("${user.search.enabled}") boolean searchEnabled) {
+        this.birthDateCutoff = birthDateCutoff;
+        this.userStore = userStore;
+        this.rangeCache = new UserRangeCache(userStore, rangeScanner, MAX_CACHED_RANGE_USERS, MAX_CACHED_RANGES);
+        this.statistics = new UserStatistics(userStore, birthDateCutoff);
+        this.searchIndex = searchEnabled ? new UserSearchIndex(userStore) : null;
+        this.versions = new UserVersions(userStore);
     }
 
     @Override
     public User create(User user) {
         validateUserHasAllRequiredFields(user);
 
-        validateUserDoesNotExistByEmail(user.getEmail());
-
         validateAgeLessThenMinimalAge(user.getBirthDate());
 
-        users.add(user);
-        return user;
+        User created = user.toBuilder().version(versions.first()).build();
+        if (!userStore.insertIfAbsent(created)) {
+            throw new UserConflictException(user.getEmail());
+        }
+        return created;
     }
 
     @Override
     public User update(User user) {
         validateUserHasAllRequiredFields(user);
         validateAgeLessThenMinimalAge(user.getBirthDate());
-        User foundUser = getUserByEmail(user.getEmail());
-        users.set(users.indexOf(foundUser), user);
-        return user;
+
+        return replace(user).orElseThrow(UserNotFoundException::new);
     }
 
     @Override
-    public User partialUpdate(User user) throws IllegalAccessException {
-        User foundUser = getUserByEmail(user.getEmail());
+    public User partialUpdate(User user) {
+        Objects.requireNonNull(user, "User must not be null");
+        Objects.requireNonNull(user.getEmail(), "Email must not be null");
+        if (user.getBirthDate() != null) {
+            validateAgeLessThenMinimalAge(user.getBirthDate());
+        }
 
-        Class<?> userClass = User.class;
-        Field[] userFields = userClass.getDeclaredFields();
-        for (Field userField : userFields) {
-            if(userField.getName().equals("birthDate") && user.getBirthDate() != null){
+        return userStore.update(user.getEmail(), foundUser -> {
+                    validateVersion(foundUser, user.getVersion());
+                    User patch = user.toBuilder().version(nextVersion(foundUser)).build();
+                    return USER_PATCH_APPLIER.merge(foundUser, patch);
+                })
+                .orElseThrow(UserNotFoundException::new);
+    }
+
+    @Override
+    public void delete(User user) {
+        Objects.requireNonNull(user, "User must not be null");
+        Objects.requireNonNull(user.getEmail(), "Email must not be null");
+
+        remove(user);
+    }
+
+    @Override
+    public List<BatchItemResult> createAll(List<User> users) {
+        validateBatchSize(users);
+
+        List<BatchItemResult> results = new ArrayList<>(users.size());
+        for (User user : users) {
+            try {
+                validateUserHasAllRequiredFields(user);
+                validateAgeLessThenMinimalAge(user.getBirthDate());
+            } catch (NullPointerException | IllegalArgumentException e) {
+                results.add(BatchItemResult.of(user, BatchItemStatus.INVALID, e.getMessage()));
+                continue;
+            }
+
+            results.add(userStore.insertIfAbsent(user.toBuilder().version(versions.first()).build())
+                    ? BatchItemResult.of(user, BatchItemStatus.CREATED)
+                    : BatchItemResult.of(user, BatchItemStatus.CONFLICT,
+                    "User already exists with email: " + user.getEmail()));
+        }
+        return results;
+    }
+
+    @Override
+    public List<BatchItemResult> updateAll(List<User> users) {
+        validateBatchSize(users);
+
+        List<BatchItemResult> results = new ArrayList<>(users.size());
+        for (User user : users) {
+            try {
+                validateUserHasAllRequiredFields(user);
                 validateAgeLessThenMinimalAge(user.getBirthDate());
+            } catch (NullPointerException | IllegalArgumentException e) {
+                results.add(BatchItemResult.of(user, BatchItemStatus.INVALID, e.getMessage()));
+                continue;
             }
-            userField.setAccessible(true);
-            Object value = userField.get(user);
-            if (value != null) {
-                userField.set(foundUser, value);
+
+            try {
+                results.add(replace(user).isPresent()
+                        ? BatchItemResult.of(user, BatchItemStatus.UPDATED)
+                        : BatchItemResult.of(user, BatchItemStatus.NOT_FOUND, UserNotFoundException.MESSAGE));
+            } catch (VersionConflictException e) {
+                results.add(BatchItemResult.of(user, BatchItemStatus.CONFLICT, e.getMessage()));
             }
-            userField.setAccessible(false);
         }
-        return foundUser;
+        return results;
     }
 
     @Override
-    public void delete(User user) {
-        users.remove(user);
+    public List<BatchItemResult> deleteAll(List<User> users) {
+        validateBatchSize(users);
+
+        List<BatchItemResult> results = new ArrayList<>(users.size());
+        for (User user : users) {
+            if (user == null || user.getEmail() == null) {
+                results.add(BatchItemResult.of(user, BatchItemStatus.INVALID, "Email must not be null"));
+                continue;
+            }
+
+            try {
+                results.add(remove(user)
+                        ? BatchItemResult.of(user, BatchItemStatus.DELETED)
+                        : BatchItemResult.of(user, BatchItemStatus.NOT_FOUND, UserNotFoundException.MESSAGE));
+            } catch (VersionConflictException e) {
+                results.add(BatchItemResult.of(user, BatchItemStatus.CONFLICT, e.getMessage()));
+            }
+        }
+        return results;
     }
 
     @Override
     public List<User> getUsersWithBirthDateInBetween(LocalDate from, LocalDate to) {
-        if(!from.isBefore(to) && !from.isEqual(to)) {
-            throw new IllegalArgumentException("From = " + from + " must be before To = " + to);
+        return getUserRange(from, to).getUsers();
+    }
+
+    @Override
+    public UserRange getUserRange(LocalDate from, LocalDate to) {
+        validateDateRange(from, to);
+
+        return rangeCache.get(from, to);
+    }
+
+    @Override
+    public Stream<User> streamUsersWithBirthDateInBetween(LocalDate from, LocalDate to) {
+        validateDateRange(from, to);
+
+        return userStore.findByBirthDateBetween(from, to).stream();
+    }
+
+    @Override
+    public UserPage getUsersWithBirthDateInBetween(LocalDate from, LocalDate to, String cursor, int limit) {
+        validateDateRange(from, to);
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_LIMIT + ": " + limit);
         }
 
-        return users.stream()
-                .filter(user -> !user.getBirthDate().isBefore(from) && !user.getBirthDate().isAfter(to))
-                .toList();
+        Collection<User> range = cursor == null
+                ? userStore.findByBirthDateBetween(from, to)
+                : userStore.findByBirthDateBetween(from, to, UserCursor.decode(cursor));
+
+        List<User> users = new ArrayList<>(Math.min(limit, DEFAULT_PAGE_CAPACITY));
+        Iterator<User> iterator = range.iterator();
+        while (users.size() < limit && iterator.hasNext()) {
+            users.add(iterator.next());
+        }
+
+        String nextCursor = iterator.hasNext() ? UserCursor.of(users.get(users.size() - 1)).encode() : null;
+        return new UserPage(users, nextCursor);
     }
 
     @Override
     public User getUserByEmail(String email) {
         Objects.requireNonNull(email, "Email must not be null");
 
-        return users.stream()
-                .filter(user -> user.getEmail().equals(email))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        return userStore.findByEmail(email)
+                .orElseThrow(UserNotFoundException::new);
+    }
+
+    @Override
+    public UserStats getStats() {
+        return statistics.stats();
+    }
+
+    @Override
+    public Map<Integer, Long> getBirthYearHistogram() {
+        return statistics.birthYearHistogram();
+    }
+
+    @Override
+    public Map<YearMonth, Long> getBirthMonthHistogram() {
+        return statistics.birthMonthHistogram();
+    }
+
+    @Override
+    public List<User> searchUsers(String lastName, String email, String address, int limit) {
+        if (searchIndex == null) {
+            throw new UserRequestException("Search is disabled, see user.search.enabled");
+        }
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_LIMIT + ": " + limit);
+        }
+        int criteria = (isBlank(lastName) ? 0 : 1) + (isBlank(email) ? 0 : 1) + (isBlank(address) ? 0 : 1);
+        if (criteria != 1) {
+            throw new IllegalArgumentException("Search needs exactly one of lastName, email or address");
+        }
+
+        Stream<User> users;
+        if (!isBlank(lastName)) {
+            users = searchIndex.byLastNamePrefix(lastName);
+        } else if (!isBlank(email)) {
+            users = searchIndex.byEmailPrefix(email);
+        } else {
+            users = searchIndex.byAddressWords(address);
+        }
+        return users.limit(limit).toList();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Stores a copy of the user with the next version, if the stored version is the expected one.
+     */
+    private Optional<User> replace(User user) {
+        return userStore.update(user.getEmail(), foundUser -> {
+            validateVersion(foundUser, user.getVersion());
+            return user.toBuilder().version(nextVersion(foundUser)).build();
+        });
+    }
+
+    private boolean remove(User user) {
+        return userStore.removeIf(user.getEmail(), foundUser -> {
+            validateVersion(foundUser, user.getVersion());
+            return foundUser.equals(user);
+        });
+    }
+
+    /**
+     * @param expectedVersion version the write is based on, or null to write whatever is stored
+     */
+    private static void validateVersion(User foundUser, Long expectedVersion) {
+        long actualVersion = foundUser.getVersion() == null ? 0 : foundUser.getVersion();
+        if (expectedVersion != null && expectedVersion != actualVersion) {
+            throw new VersionConflictException(foundUser.getEmail(), expectedVersion, actualVersion);
+        }
+    }
+
+    private long nextVersion(User foundUser) {
+        return versions.next(foundUser);
     }
 
     private void validateAgeLessThenMinimalAge(LocalDate date){
-        if (!isDateMoreThanMinimalAge(date)) {
-            throw new IllegalArgumentException("User's age is less than " + minimalAge + ": " + date);
+        if (!birthDateCutoff.isOldEnough(date)) {
+            throw new AgeRestrictionException(birthDateCutoff.getMinimalAge(), date);
         }
     }
 
-    private boolean isDateMoreThanMinimalAge(LocalDate date) {
-        return (LocalDate.now().getYear() - date.getYear()) >= minimalAge;
+    private void validateBatchSize(List<User> users) {
+        Objects.requireNonNull(users, "Users must not be null");
+        if (users.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch size must not be more than " + MAX_BATCH_SIZE + ": "
+                    + users.size());
+        }
     }
 
-    private void validateUserDoesNotExistByEmail(String email) {
-        if (users.stream().anyMatch(user -> user.getEmail().equals(email))) {
-            throw new IllegalArgumentException("User already exists with email: " + email);
+    private void validateDateRange(LocalDate from, LocalDate to) {
+        if(!from.isBefore(to) && !from.isEqual(to)) {
+            throw new IllegalArgumentException("From = " + from + " must be before To = " + to);
         }
     }
 
@@ -0,0 +1,108 @@
+package orlov.oleksandr.programming.userrest.service.impl;
+
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserStats;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * User counts by birth day, month and year, kept up to date by every write to the store, so statistics
+ * cost as much as the number of buckets instead of a scan of the users.
+ * <p>
+ * Buckets are never removed once created, emptied buckets are left out of the histograms. Eligibility moves
+ * with the date, so it is computed from the day buckets of the last {@code minimalAge} years.
+ */
+final class UserStatistics {
+
+    private final BirthDateCutoff birthDateCutoff;
+
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Keyed by epoch day, which only fits a long for the whole range of {@link LocalDate}.
+     */
+    private final ConcurrentNavigableMap<Long, LongAdder> usersByBirthDay = new ConcurrentSkipListMap<>();
+
+    /**
+     * Keyed by months since year 0, so keys sort chronologically. Months of extreme years overflow an int.
+     */
+    private final ConcurrentNavigableMap<Long, LongAdder> usersByBirthMonth = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentNavigableMap<Integer, LongAdder> usersByBirthYear = new ConcurrentSkipListMap<>();
+
+    /**
+     * Counts the users already in the store, so it must be created before writes start.
+     */
+    UserStatistics(UserStore userStore, BirthDateCutoff birthDateCutoff) {
+        this.birthDateCutoff = birthDateCutoff;
+        for (User user : userStore.findAll()) {
+            add(user, 1);
+        }
+        userStore.addListener(this::onWrite);
+    }
+
+    UserStats stats() {
+        long ineligible = 0;
+        for (LongAdder users : usersByBirthDay.tailMap(birthDateCutoff.latestBirthDay(), false).values()) {
+            ineligible += users.sum();
+        }
+        long total = count.sum();
+        return new UserStats(total, total - ineligible, ineligible, birthDateCutoff.getMinimalAge());
+    }
+
+    Map<Integer, Long> birthYearHistogram() {
+        return histogram(usersByBirthYear, Function.identity());
+    }
+
+    Map<YearMonth, Long> birthMonthHistogram() {
+        return histogram(usersByBirthMonth,
+                month -> YearMonth.of((int) Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1));
+    }
+
+    /**
+     * Runs under the store's lock for the written email, so the counters of one user change in write order.
+     */
+    private void onWrite(User oldUser, User newUser) {
+        if (oldUser != null) {
+            add(oldUser, -1);
+        }
+        if (newUser != null) {
+            add(newUser, 1);
+        }
+    }
+
+    private void add(User user, int delta) {
+        count.add(delta);
+        LocalDate birthDate = user.getBirthDate();
+        if (birthDate == null) {
+            return;
+        }
+        bucket(usersByBirthDay, birthDate.toEpochDay()).add(delta);
+        bucket(usersByBirthMonth, birthDate.getYear() * 12L + birthDate.getMonthValue() - 1).add(delta);
+        bucket(usersByBirthYear, birthDate.getYear()).add(delta);
+    }
+
+    private static <B> LongAdder bucket(ConcurrentNavigableMap<B, LongAdder> buckets, B key) {
+        LongAdder bucket = buckets.get(key);
+        return bucket != null ? bucket : buckets.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    private static <B, K> Map<K, Long> histogram(ConcurrentNavigableMap<B, LongAdder> buckets, Function<B, K> key) {
+        Map<K, Long> histogram = new TreeMap<>();
+        buckets.forEach((bucket, users) -> {
+            long sum = users.sum();
+            if (sum > 0) {
+                histogram.put(key.apply(bucket), sum);
+            }
+        });
+        return histogram;
+    }
+}
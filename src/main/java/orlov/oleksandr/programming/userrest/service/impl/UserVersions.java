@@ -0,0 +1,54 @@
+package orlov.oleksandr.programming.userrest.service.impl;
+
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues user versions that are never reused under one email, so an ETag of a deleted user can't match
+ * the user created again with the same email.
+ * <p>
+ * A new user starts above every version issued so far and each write adds one, so the versions of one user
+ * stay consecutive. The counter never goes below the current time in microseconds, which keeps it ahead of
+ * the versions of an earlier run as long as that run issued fewer than a million versions a second.
+ */
+final class UserVersions {
+
+    private final AtomicLong last;
+
+    /**
+     * Starts above the versions already in the store, so it must be created before writes start.
+     */
+    UserVersions(UserStore userStore) {
+        long stored = userStore.findAll().stream()
+                .map(User::getVersion)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .max()
+                .orElse(0);
+        this.last = new AtomicLong(Math.max(stored, nowMicros()));
+    }
+
+    long first() {
+        long now = nowMicros();
+        return last.updateAndGet(previous -> Math.max(previous + 1, now));
+    }
+
+    long next(User foundUser) {
+        if (foundUser.getVersion() == null) {
+            return first();
+        }
+        long next = foundUser.getVersion() + 1;
+        if (next > last.get()) {
+            last.accumulateAndGet(next, Math::max);
+        }
+        return next;
+    }
+
+    private static long nowMicros() {
+        return TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,23 @@
+package orlov.oleksandr.programming.userrest.store;
+
+/**
+ * Hash helpers shared by the stores.
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * Murmur3 finalizer. String hash codes of similar strings differ mostly in the low bits, so tables and
+     * stripes indexed by those bits need them spread first.
+     */
+    public static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,111 @@
+package orlov.oleksandr.programming.userrest.store;
+
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserCursor;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * Reads whole birth date ranges of a {@link UserStore}, in parallel once they turn out to be wide.
+ * <p>
+ * A scan reads the range sequentially on the calling thread up to the threshold, so narrow ranges cost
+ * nothing extra. Past it, the rest of the range is split by birth date into a few chunks per pool thread,
+ * which are read on a dedicated {@link ForkJoinPool} and combined in birth date order. The pool is bounded
+ * on its own, so wide scans can't take the threads that serve other requests, and the order of the result
+ * is the same as a sequential scan.
+ */
+public class RangeScanner {
+
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+
+    private final int threshold;
+
+    /**
+     * @param threshold number of users read sequentially before the rest is read in parallel;
+     *                  0 reads every range sequentially
+     */
+    public RangeScanner(ForkJoinPool pool, int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Parallel scan threshold must not be negative: " + threshold);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    public static RangeScanner sequential() {
+        return new RangeScanner(null, 0);
+    }
+
+    /**
+     * @return users born between both dates inclusive, ordered by birth date
+     */
+    public List<User> copy(UserStore userStore, LocalDate from, LocalDate to) {
+        return collect(userStore, from, to, Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * Collects users born between both dates inclusive. Partial results are combined in birth date order,
+     * so the collector sees the users as if they were collected sequentially.
+     */
+    public <A, R> R collect(UserStore userStore, LocalDate from, LocalDate to, Collector<User, A, R> collector) {
+        A head = collector.supplier().get();
+        Iterator<User> users = userStore.findByBirthDateBetween(from, to).iterator();
+        User last = null;
+        for (int read = 0; users.hasNext(); read++) {
+            if (read == threshold && threshold > 0) {
+                return collector.finisher().apply(collectRest(userStore, last, to, collector, head));
+            }
+            last = users.next();
+            collector.accumulator().accept(head, last);
+        }
+        return collector.finisher().apply(head);
+    }
+
+    private <A> A collectRest(UserStore userStore, User last, LocalDate to, Collector<User, A, ?> collector, A head) {
+        LocalDate lastDay = last.getBirthDate();
+        UserCursor after = UserCursor.of(last);
+        List<ForkJoinTask<A>> chunks = new ArrayList<>();
+        chunks.add(pool.submit(() -> accumulate(userStore.findByBirthDateBetween(lastDay, lastDay, after), collector)));
+
+        long days = ChronoUnit.DAYS.between(lastDay, to);
+        if (days > 0) {
+            long chunkDays = ceilDiv(days, Math.min(days, (long) pool.getParallelism() * CHUNKS_PER_THREAD));
+            // Steps are clamped to the days left before adding them, so ranges ending at LocalDate.MAX don't overflow
+            for (LocalDate chunkEnd = lastDay; chunkEnd.isBefore(to); ) {
+                LocalDate from = chunkEnd.plusDays(1);
+                LocalDate chunkTo = from.plusDays(Math.min(chunkDays - 1, ChronoUnit.DAYS.between(from, to)));
+                chunks.add(pool.submit(() -> accumulate(userStore.findByBirthDateBetween(from, chunkTo), collector)));
+                chunkEnd = chunkTo;
+            }
+        }
+
+        A result = head;
+        for (ForkJoinTask<A> chunk : chunks) {
+            result = collector.combiner().apply(result, chunk.join());
+        }
+        return result;
+    }
+
+    private static <A> A accumulate(Collection<User> users, Collector<User, A, ?> collector) {
+        A container = collector.supplier().get();
+        for (User user : users) {
+            collector.accumulator().accept(container, user);
+        }
+        return container;
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+}
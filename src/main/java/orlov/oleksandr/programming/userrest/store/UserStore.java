@@ -0,0 +1,118 @@
+package orlov.oleksandr.programming.userrest.store;
+
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserCursor;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Storage for users keyed by email. Implementations must be safe to use from concurrent request threads.
+ * <p>
+ * Stored users are never modified: every write replaces the stored instance with a new one, so a user
+ * returned by a read is a consistent record even while it is being updated.
+ */
+public interface UserStore {
+
+    Optional<User> findByEmail(String email);
+
+    /**
+     * Atomically stores the user if no user with the same email exists.
+     *
+     * @return true if the user was stored, false if the email is already taken
+     */
+    boolean insertIfAbsent(User user);
+
+    /**
+     * Atomically replaces the user stored under the same email.
+     *
+     * @return the previous user, or empty if there was no user with this email
+     */
+    Optional<User> replace(User user);
+
+    /**
+     * Atomically replaces the user stored under the email with the result of the updater.
+     * The updater receives the current user, must not modify it and may run while other writes
+     * for the same email are blocked, so it should be short.
+     *
+     * @return the new user, or empty if there was no user with this email
+     */
+    Optional<User> update(String email, UnaryOperator<User> updater);
+
+    /**
+     * Removes the stored user only if it is equal to the given one.
+     *
+     * @return true if the user was removed
+     */
+    boolean remove(User user);
+
+    /**
+     * Atomically removes the user stored under the email if the condition accepts it. The condition runs
+     * under the same rules as an updater of {@link #update}; an exception thrown by it leaves the user stored.
+     *
+     * @return true if the user was removed
+     */
+    boolean removeIf(String email, Predicate<User> condition);
+
+    /**
+     * @return a weakly consistent view of users born between both dates inclusive, ordered by birth date
+     */
+    Collection<User> findByBirthDateBetween(LocalDate from, LocalDate to);
+
+    /**
+     * Same as {@link #findByBirthDateBetween(LocalDate, LocalDate)}, but starts strictly after the cursor position,
+     * so reading the next page costs the same as reading the first one.
+     */
+    Collection<User> findByBirthDateBetween(LocalDate from, LocalDate to, UserCursor after);
+
+    /**
+     * @return a weakly consistent view of all stored users in no particular order
+     */
+    Collection<User> findAll();
+
+    int size();
+
+    /**
+     * @return number of entries in each index by index name, for monitoring
+     */
+    Map<String, Long> indexSizes();
+
+    void addListener(UserStoreListener listener);
+
+    /**
+     * Starts loading users into a store that is empty and not used yet, as on recovery before any listener
+     * is added. Implementations may skip locks and listeners and defer indexing to {@link BulkLoad#finish()},
+     * so their indexes are built in one pass. The default just writes the users one by one.
+     */
+    default BulkLoad bulkLoad() {
+        return new BulkLoad() {
+            @Override
+            public void add(User user) {
+                if (!insertIfAbsent(user)) {
+                    replace(user);
+                }
+            }
+
+            @Override
+            public void finish() {
+            }
+        };
+    }
+
+    interface BulkLoad {
+
+        /**
+         * Adds the user, replacing a loaded user with the same email.
+         */
+        void add(User user);
+
+        /**
+         * Builds what the loaded users still need; the store can be used once it returns.
+         */
+        void finish();
+    }
+}
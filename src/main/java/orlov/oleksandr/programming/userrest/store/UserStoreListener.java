@@ -0,0 +1,18 @@
+package orlov.oleksandr.programming.userrest.store;
+
+import orlov.oleksandr.programming.userrest.model.User;
+
+/**
+ * Notified of every successful write while the store still holds the lock for the written email,
+ * so writes to the same email are seen in the order they were applied. Implementations must be fast
+ * and must not throw.
+ */
+@FunctionalInterface
+public interface UserStoreListener {
+
+    /**
+     * @param oldUser the previous user, or null if the user was inserted
+     * @param newUser the new user, or null if the user was removed
+     */
+    void onWrite(User oldUser, User newUser);
+}
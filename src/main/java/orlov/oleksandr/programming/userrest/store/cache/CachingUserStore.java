@@ -0,0 +1,140 @@
+package orlov.oleksandr.programming.userrest.store.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserCursor;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+import orlov.oleksandr.programming.userrest.store.UserStoreListener;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read-through cache of users by email in front of a slower store. Range queries and writes go straight
+ * to the store.
+ * <p>
+ * Cached users are kept current from the store's write notifications: an update replaces the cached user
+ * if there is one and a removal evicts it, so a write is visible to the next lookup. Every notification also
+ * bumps a write stamp of the email's stripe. A miss reads the stamp before loading the user, caches the loaded
+ * user and then takes it back out if the stamp has moved, so a load that raced with a write can't leave
+ * the older user cached. Notifications never wait for a load, so they are safe to run under the store's locks.
+ * Emails that aren't stored are not cached.
+ */
+public class CachingUserStore implements UserStore {
+
+    private final UserStore delegate;
+
+    private static final int WRITE_STAMP_STRIPES = 1024;
+
+    private final Cache<String, User> cache;
+
+    private final AtomicLongArray writeStamps = new AtomicLongArray(WRITE_STAMP_STRIPES);
+
+    public CachingUserStore(UserStore delegate, Cache<String, User> cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+        delegate.addListener(this::onWrite);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        User cached = cache.getIfPresent(email);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        int stripe = stripeOf(email);
+        long stamp = writeStamps.get(stripe);
+        Optional<User> loaded = delegate.findByEmail(email);
+        loaded.ifPresent(user -> {
+            cache.asMap().putIfAbsent(email, user);
+            if (writeStamps.get(stripe) != stamp) {
+                cache.asMap().remove(email, user);
+            }
+        });
+        return loaded;
+    }
+
+    @Override
+    public boolean insertIfAbsent(User user) {
+        return delegate.insertIfAbsent(user);
+    }
+
+    @Override
+    public Optional<User> replace(User user) {
+        return delegate.replace(user);
+    }
+
+    @Override
+    public Optional<User> update(String email, UnaryOperator<User> updater) {
+        return delegate.update(email, updater);
+    }
+
+    @Override
+    public boolean remove(User user) {
+        return delegate.remove(user);
+    }
+
+    @Override
+    public boolean removeIf(String email, Predicate<User> condition) {
+        return delegate.removeIf(email, condition);
+    }
+
+    @Override
+    public Collection<User> findByBirthDateBetween(LocalDate from, LocalDate to) {
+        return delegate.findByBirthDateBetween(from, to);
+    }
+
+    @Override
+    public Collection<User> findByBirthDateBetween(LocalDate from, LocalDate to, UserCursor after) {
+        return delegate.findByBirthDateBetween(from, to, after);
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public Map<String, Long> indexSizes() {
+        return delegate.indexSizes();
+    }
+
+    @Override
+    public void addListener(UserStoreListener listener) {
+        delegate.addListener(listener);
+    }
+
+    @Override
+    public BulkLoad bulkLoad() {
+        return delegate.bulkLoad();
+    }
+
+    /**
+     * Writes through to users that are already cached only, so bulk writes don't push out the users
+     * that are actually read.
+     */
+    private void onWrite(User oldUser, User newUser) {
+        writeStamps.incrementAndGet(stripeOf(newUser == null ? oldUser.getEmail() : newUser.getEmail()));
+        if (newUser == null) {
+            cache.invalidate(oldUser.getEmail());
+        } else {
+            cache.asMap().replace(newUser.getEmail(), newUser);
+        }
+    }
+
+    private static int stripeOf(String email) {
+        int hash = email.hashCode();
+        return (hash ^ (hash >>> 16)) & (WRITE_STAMP_STRIPES - 1);
+    }
+}
@@ -0,0 +1,313 @@
+package orlov.oleksandr.programming.userrest.store.impl;
+
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserCursor;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+import orlov.oleksandr.programming.userrest.store.UserStoreListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps users in a hash index by email and a sorted secondary index by (birthDate, email).
+ * Every write for an email runs under the same striped {@link ReentrantLock}, so both indexes are updated
+ * together and never disagree for longer than the write itself. Reads take no locks.
+ * <p>
+ * Writes deliberately avoid {@link ConcurrentHashMap#compute}: it holds a monitor while the remapping
+ * function runs, and a virtual thread that parks inside a monitor (for example on the write-ahead log
+ * lock in a listener) pins its carrier thread. {@link ReentrantLock} lets it unmount instead.
+ * <p>
+ * With a {@link StringDictionary}, first names, last names and addresses of written users are replaced by
+ * shared instances before the users are stored.
+ */
+public class InMemoryUserStore implements UserStore {
+
+    private static final int LOCK_STRIPES = 1024;
+
+    private final ConcurrentMap<String, User> usersByEmail;
+
+    private final ConcurrentNavigableMap<BirthDateKey, User> usersByBirthDate;
+
+    /**
+     * {@link ConcurrentSkipListMap#size()} walks the whole map, so the birth-date index size is counted on write.
+     */
+    private final LongAdder birthDateIndexSize;
+
+    private final List<UserStoreListener> listeners;
+
+    private final ReentrantLock[] locks;
+
+    private final StringDictionary dictionary;
+
+    public InMemoryUserStore() {
+        this(null);
+    }
+
+    /**
+     * @param dictionary shared by all stores of the application, or null to store strings as they are
+     */
+    public InMemoryUserStore(StringDictionary dictionary) {
+        this.dictionary = dictionary;
+        usersByEmail = new ConcurrentHashMap<>();
+        usersByBirthDate = new ConcurrentSkipListMap<>();
+        birthDateIndexSize = new LongAdder();
+        listeners = new CopyOnWriteArrayList<>();
+        locks = new ReentrantLock[LOCK_STRIPES];
+        Arrays.setAll(locks, i -> new ReentrantLock());
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return Optional.ofNullable(usersByEmail.get(email));
+    }
+
+    @Override
+    public boolean insertIfAbsent(User user) {
+        ReentrantLock lock = lockFor(user.getEmail());
+        lock.lock();
+        try {
+            User newUser = deduplicate(user);
+            if (usersByEmail.putIfAbsent(user.getEmail(), newUser) != null) {
+                return false;
+            }
+            indexBirthDate(newUser);
+            notifyListeners(null, newUser);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<User> replace(User user) {
+        ReentrantLock lock = lockFor(user.getEmail());
+        lock.lock();
+        try {
+            User newUser = deduplicate(user);
+            User oldUser = usersByEmail.replace(user.getEmail(), newUser);
+            if (oldUser != null) {
+                reindex(oldUser, newUser);
+                notifyListeners(oldUser, newUser);
+            }
+            return Optional.ofNullable(oldUser);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<User> update(String email, UnaryOperator<User> updater) {
+        ReentrantLock lock = lockFor(email);
+        lock.lock();
+        try {
+            User oldUser = usersByEmail.get(email);
+            if (oldUser == null) {
+                return Optional.empty();
+            }
+            User newUser = deduplicate(updater.apply(oldUser));
+            usersByEmail.put(email, newUser);
+            reindex(oldUser, newUser);
+            notifyListeners(oldUser, newUser);
+            return Optional.of(newUser);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(User user) {
+        return removeIf(user.getEmail(), user::equals);
+    }
+
+    @Override
+    public boolean removeIf(String email, Predicate<User> condition) {
+        ReentrantLock lock = lockFor(email);
+        lock.lock();
+        try {
+            User oldUser = usersByEmail.get(email);
+            if (oldUser == null || !condition.test(oldUser)) {
+                return false;
+            }
+            usersByEmail.remove(email);
+            unindexBirthDate(oldUser);
+            notifyListeners(oldUser, null);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Collection<User> findByBirthDateBetween(LocalDate from, LocalDate to) {
+        return usersByBirthDate.subMap(BirthDateKey.first(from), true, BirthDateKey.last(to), true).values();
+    }
+
+    @Override
+    public Collection<User> findByBirthDateBetween(LocalDate from, LocalDate to, UserCursor after) {
+        BirthDateKey fromKey = BirthDateKey.first(from);
+        BirthDateKey toKey = BirthDateKey.last(to);
+        BirthDateKey afterKey = new BirthDateKey(after.birthDate(), after.email());
+        if (afterKey.compareTo(fromKey) < 0) {
+            return findByBirthDateBetween(from, to);
+        }
+        if (afterKey.compareTo(toKey) >= 0) {
+            return List.of();
+        }
+        return usersByBirthDate.subMap(afterKey, false, toKey, true).values();
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        return usersByEmail.values();
+    }
+
+    @Override
+    public int size() {
+        return usersByEmail.size();
+    }
+
+    @Override
+    public void addListener(UserStoreListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Fills the email index directly and builds the birth date index once the load finishes, inserting
+     * its keys in ascending order. Users are grouped by day first and only each day is sorted by email,
+     * which is much cheaper than sorting them all in the scattered order they come out of the email index.
+     */
+    @Override
+    public BulkLoad bulkLoad() {
+        if (!usersByEmail.isEmpty()) {
+            throw new IllegalStateException("Bulk load needs an empty store");
+        }
+        return new BulkLoad() {
+            @Override
+            public void add(User user) {
+                usersByEmail.put(user.getEmail(), deduplicate(user));
+            }
+
+            @Override
+            public void finish() {
+                Map<LocalDate, List<User>> usersByDay = new HashMap<>();
+                for (User user : usersByEmail.values()) {
+                    usersByDay.computeIfAbsent(user.getBirthDate(), day -> new ArrayList<>()).add(user);
+                }
+                LocalDate[] days = usersByDay.keySet().toArray(new LocalDate[0]);
+                Arrays.sort(days);
+                for (LocalDate day : days) {
+                    List<User> users = usersByDay.get(day);
+                    users.sort(Comparator.comparing(User::getEmail));
+                    for (User user : users) {
+                        usersByBirthDate.put(BirthDateKey.of(user), user);
+                    }
+                    birthDateIndexSize.add(users.size());
+                }
+            }
+        };
+    }
+
+    @Override
+    public Map<String, Long> indexSizes() {
+        return Map.of("email", (long) usersByEmail.size(), "birthDate", birthDateIndexSize.sum());
+    }
+
+    private ReentrantLock lockFor(String email) {
+        int hash = email.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (locks.length - 1)];
+    }
+
+    /**
+     * Returns a user with the low-cardinality fields of the given one swapped for equal shared instances.
+     * The given user is never modified: it may belong to the caller or already be stored and visible to
+     * readers, so a copy is made whenever a field changes.
+     */
+    private User deduplicate(User user) {
+        if (dictionary == null) {
+            return user;
+        }
+        String firstName = dictionary.intern(user.getFirstName());
+        String lastName = dictionary.intern(user.getLastName());
+        String address = dictionary.intern(user.getAddress());
+        if (firstName == user.getFirstName() && lastName == user.getLastName() && address == user.getAddress()) {
+            return user;
+        }
+        return user.toBuilder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .address(address)
+                .build();
+    }
+
+    private void notifyListeners(User oldUser, User newUser) {
+        for (UserStoreListener listener : listeners) {
+            listener.onWrite(oldUser, newUser);
+        }
+    }
+
+    private void reindex(User oldUser, User newUser) {
+        indexBirthDate(newUser);
+        if (!BirthDateKey.of(oldUser).equals(BirthDateKey.of(newUser))) {
+            unindexBirthDate(oldUser);
+        }
+    }
+
+    private void indexBirthDate(User user) {
+        if (usersByBirthDate.put(BirthDateKey.of(user), user) == null) {
+            birthDateIndexSize.increment();
+        }
+    }
+
+    private void unindexBirthDate(User user) {
+        if (usersByBirthDate.remove(BirthDateKey.of(user), user)) {
+            birthDateIndexSize.decrement();
+        }
+    }
+
+    /**
+     * A null email sorts after every email of the same day, so {@link #last} bounds a day without needing
+     * the next one, which doesn't exist for {@link LocalDate#MAX}.
+     */
+    record BirthDateKey(LocalDate birthDate, String email) implements Comparable<BirthDateKey> {
+
+        static BirthDateKey of(User user) {
+            return new BirthDateKey(user.getBirthDate(), user.getEmail());
+        }
+
+        static BirthDateKey first(LocalDate birthDate) {
+            return new BirthDateKey(birthDate, "");
+        }
+
+        static BirthDateKey last(LocalDate birthDate) {
+            return new BirthDateKey(birthDate, null);
+        }
+
+        @Override
+        public int compareTo(BirthDateKey other) {
+            int result = birthDate.compareTo(other.birthDate);
+            if (result != 0) {
+                return result;
+            }
+            if (email == null || other.email == null) {
+                return email == null ? (other.email == null ? 0 : 1) : -1;
+            }
+            return email.compareTo(other.email);
+        }
+    }
+}
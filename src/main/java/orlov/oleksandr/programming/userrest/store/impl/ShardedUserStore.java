@@ -0,0 +1,250 @@
+package orlov.oleksandr.programming.userrest.store.impl;
+
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserCursor;
+import orlov.oleksandr.programming.userrest.store.Hashing;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+import orlov.oleksandr.programming.userrest.store.UserStoreListener;
+
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Splits users into independent partitions by email hash, {@link InMemoryUserStore} ones unless another
+ * engine is given, so writes to different shards share no index nodes, counters or locks.
+ * <p>
+ * Point operations go to the owning shard only. Range queries return a view over all shards: iterating it
+ * lazily k-way merges the shard ranges by (birthDate, email), so paging and streaming read only what they
+ * use. Wide ranges are read in parallel by {@link orlov.oleksandr.programming.userrest.store.RangeScanner},
+ * which splits them by birth date instead of by shard.
+ */
+public class ShardedUserStore implements UserStore {
+
+    static final Comparator<User> BIRTH_DATE_ORDER = Comparator.comparing(User::getBirthDate)
+            .thenComparing(User::getEmail);
+
+    private final UserStore[] shards;
+
+    public ShardedUserStore(int shardCount) {
+        this(shardCount, InMemoryUserStore::new);
+    }
+
+    public ShardedUserStore(int shardCount, Supplier<? extends UserStore> shardFactory) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        this.shards = new UserStore[shardCount];
+        Arrays.setAll(shards, i -> shardFactory.get());
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return shardFor(email).findByEmail(email);
+    }
+
+    @Override
+    public boolean insertIfAbsent(User user) {
+        return shardFor(user.getEmail()).insertIfAbsent(user);
+    }
+
+    @Override
+    public Optional<User> replace(User user) {
+        return shardFor(user.getEmail()).replace(user);
+    }
+
+    @Override
+    public Optional<User> update(String email, UnaryOperator<User> updater) {
+        return shardFor(email).update(email, updater);
+    }
+
+    @Override
+    public boolean remove(User user) {
+        return shardFor(user.getEmail()).remove(user);
+    }
+
+    @Override
+    public boolean removeIf(String email, Predicate<User> condition) {
+        return shardFor(email).removeIf(email, condition);
+    }
+
+    @Override
+    public Collection<User> findByBirthDateBetween(LocalDate from, LocalDate to) {
+        return new MergedRange(shard -> shard.findByBirthDateBetween(from, to));
+    }
+
+    @Override
+    public Collection<User> findByBirthDateBetween(LocalDate from, LocalDate to, UserCursor after) {
+        return new MergedRange(shard -> shard.findByBirthDateBetween(from, to, after));
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<User> iterator() {
+                return Arrays.stream(shards)
+                        .flatMap(shard -> shard.findAll().stream())
+                        .iterator();
+            }
+
+            @Override
+            public int size() {
+                return ShardedUserStore.this.size();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (UserStore shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    @Override
+    public BulkLoad bulkLoad() {
+        BulkLoad[] loads = new BulkLoad[shards.length];
+        Arrays.setAll(loads, i -> shards[i].bulkLoad());
+        return new BulkLoad() {
+            @Override
+            public void add(User user) {
+                loads[shardIndex(user.getEmail())].add(user);
+            }
+
+            @Override
+            public void finish() {
+                for (BulkLoad load : loads) {
+                    load.finish();
+                }
+            }
+        };
+    }
+
+    @Override
+    public Map<String, Long> indexSizes() {
+        Map<String, Long> sizes = new HashMap<>();
+        for (UserStore shard : shards) {
+            shard.indexSizes().forEach((index, size) -> sizes.merge(index, size, Long::sum));
+        }
+        return sizes;
+    }
+
+    @Override
+    public void addListener(UserStoreListener listener) {
+        for (UserStore shard : shards) {
+            shard.addListener(listener);
+        }
+    }
+
+    private UserStore shardFor(String email) {
+        return shards[shardIndex(email)];
+    }
+
+    /**
+     * {@link InMemoryUserStore} picks its lock stripe from the low bits of the same hash, so without mixing
+     * every shard would only ever use a fraction of its stripes.
+     */
+    private int shardIndex(String email) {
+        return Math.floorMod(Hashing.mix(email.hashCode()), shards.length);
+    }
+
+    /**
+     * Birth date ordered view of one range over all shards.
+     */
+    private final class MergedRange extends AbstractCollection<User> {
+
+        private final Function<UserStore, Collection<User>> range;
+
+        private MergedRange(Function<UserStore, Collection<User>> range) {
+            this.range = range;
+        }
+
+        @Override
+        public Iterator<User> iterator() {
+            List<Iterator<User>> iterators = new ArrayList<>(shards.length);
+            for (UserStore shard : shards) {
+                iterators.add(range.apply(shard).iterator());
+            }
+            return new MergingIterator(iterators);
+        }
+
+        /**
+         * Walks every shard's range, so it costs as much as reading the range.
+         */
+        @Override
+        public int size() {
+            int size = 0;
+            for (UserStore shard : shards) {
+                size += range.apply(shard).size();
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Lazy k-way merge of birth date ordered iterators.
+     */
+    private static final class MergingIterator implements Iterator<User> {
+
+        private final PriorityQueue<Head> heads;
+
+        private MergingIterator(List<Iterator<User>> iterators) {
+            heads = new PriorityQueue<>(Math.max(iterators.size(), 1),
+                    (a, b) -> BIRTH_DATE_ORDER.compare(a.user, b.user));
+            for (Iterator<User> iterator : iterators) {
+                if (iterator.hasNext()) {
+                    heads.add(new Head(iterator.next(), iterator));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public User next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+
+            User user = head.user;
+            if (head.iterator.hasNext()) {
+                head.user = head.iterator.next();
+                heads.add(head);
+            }
+            return user;
+        }
+    }
+
+    private static final class Head {
+
+        private User user;
+
+        private final Iterator<User> iterator;
+
+        private Head(User user, Iterator<User> iterator) {
+            this.user = user;
+            this.iterator = iterator;
+        }
+    }
+}
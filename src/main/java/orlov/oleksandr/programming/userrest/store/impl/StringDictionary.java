@@ -0,0 +1,109 @@
+package orlov.oleksandr.programming.userrest.store.impl;
+
+import orlov.oleksandr.programming.userrest.store.Hashing;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lossy dictionary that maps equal strings to one shared instance, so low-cardinality fields such as names
+ * and addresses of millions of users don't each keep their own copy.
+ * <p>
+ * Strings are kept in a fixed number of slots chosen by hash: a string whose slot holds a different one
+ * takes the slot over, so the dictionary never grows and frequent values win their slots back. Slots only
+ * hold weak references, so values no longer used by any user are collected. Lock-free; a race between two
+ * strings of the same slot at worst misses a deduplication.
+ */
+public class StringDictionary {
+
+    /**
+     * Object header and fields of a {@link String} on a 64-bit JVM with compressed oops.
+     */
+    private static final int STRING_BYTES = 24;
+
+    /**
+     * Object header and length of the byte array behind a {@link String}.
+     */
+    private static final int ARRAY_BYTES = 16;
+
+    private final AtomicReferenceArray<WeakReference<String>> slots;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder savedBytes = new LongAdder();
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public StringDictionary(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Dictionary capacity must be positive: " + capacity);
+        }
+        int slotCount = Integer.highestOneBit(capacity);
+        slots = new AtomicReferenceArray<>(slotCount < capacity ? slotCount << 1 : slotCount);
+    }
+
+    /**
+     * @return the shared instance equal to the value, which becomes the shared one if there is none
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        int slot = Hashing.mix(value.hashCode()) & (slots.length() - 1);
+        WeakReference<String> reference = slots.get(slot);
+        String shared = reference == null ? null : reference.get();
+        if (shared == value) {
+            return shared;
+        }
+        if (value.equals(shared)) {
+            hits.increment();
+            savedBytes.add(sizeOf(value));
+            return shared;
+        }
+
+        misses.increment();
+        slots.set(slot, new WeakReference<>(value));
+        return value;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * @return number of strings replaced by a shared instance
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of strings that became the shared instance of their slot
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return estimated heap bytes of the replaced copies, released once nothing else references them
+     */
+    public long savedBytes() {
+        return savedBytes.sum();
+    }
+
+    private static long sizeOf(String value) {
+        int length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                length = value.length() * 2;
+                break;
+            }
+        }
+        return STRING_BYTES + ((ARRAY_BYTES + length + 7) & ~7);
+    }
+}
@@ -0,0 +1,595 @@
+package orlov.oleksandr.programming.userrest.store.offheap;
+
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserCursor;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+import orlov.oleksandr.programming.userrest.store.UserStoreListener;
+
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import static orlov.oleksandr.programming.userrest.store.offheap.UserColumns.*;
+
+/**
+ * Keeps users outside the Java heap, for data sets whose millions of small objects would otherwise fill the
+ * old generation and lengthen every full collection. Fields live in {@link UserColumns}, strings once each
+ * in a {@link Utf8Arena}, and the birth date index maps each epoch day to its rows sorted by email, so the
+ * heap holds one int per user plus an array per day.
+ * <p>
+ * {@link User} objects are only created for returned users. Range and full views materialize users in
+ * small chunks and find their place again by (birthDate, email) before each chunk, which keeps them weakly
+ * consistent without holding the lock while the caller consumes them.
+ * <p>
+ * All writes share one write lock, and listeners run under it. Shard it with
+ * {@link orlov.oleksandr.programming.userrest.store.impl.ShardedUserStore} when writes need to scale.
+ * Off-heap memory counts against {@code -XX:MaxDirectMemorySize}. Every string column of a row holds one reference
+ * counted by the {@link Utf8Arena}, given back when the value is replaced or the user removed, so the space of
+ * strings no user refers to any more is reused.
+ */
+public class OffHeapUserStore implements UserStore {
+
+    private static final int READ_CHUNK = 256;
+
+    private static final int[] NO_ROWS = new int[0];
+
+    private static final int[] STRING_COLUMNS = {FIRST_NAME, LAST_NAME, ADDRESS, PHONE_NUMBER};
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Utf8Arena strings = new Utf8Arena();
+
+    private final UserColumns columns = new UserColumns();
+
+    private final TreeMap<Long, int[]> rowsByBirthDay = new TreeMap<>();
+
+    private final List<UserStoreListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile int size;
+
+    private volatile long birthDateIndexSize;
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        lock.readLock().lock();
+        try {
+            int row = rowOf(email);
+            return row < 0 ? Optional.empty() : Optional.of(read(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean insertIfAbsent(User user) {
+        lock.writeLock().lock();
+        try {
+            if (rowOf(user.getEmail()) >= 0) {
+                return false;
+            }
+            int row = insertRow(user);
+            indexBirthDay(row, birthDayOf(row), user.getEmail());
+            size++;
+            notifyListeners(null, user);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<User> replace(User user) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(user.getEmail());
+            if (row < 0) {
+                return Optional.empty();
+            }
+            User oldUser = read(row);
+            rewrite(row, user.getEmail(), user);
+            notifyListeners(oldUser, user);
+            return Optional.of(oldUser);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<User> update(String email, UnaryOperator<User> updater) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(email);
+            if (row < 0) {
+                return Optional.empty();
+            }
+            User oldUser = read(row);
+            User newUser = updater.apply(oldUser);
+            rewrite(row, email, newUser);
+            notifyListeners(oldUser, newUser);
+            return Optional.of(newUser);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(User user) {
+        return removeIf(user.getEmail(), user::equals);
+    }
+
+    @Override
+    public boolean removeIf(String email, Predicate<User> condition) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(email);
+            if (row < 0) {
+                return false;
+            }
+            User oldUser = read(row);
+            if (!condition.test(oldUser)) {
+                return false;
+            }
+            unindexBirthDay(row, birthDayOf(row));
+            long emailRef = columns.getLong(row, EMAIL);
+            strings.setUserRow(emailRef, -1);
+            releaseStrings(row);
+            strings.release(emailRef);
+            columns.free(row);
+            size--;
+            notifyListeners(oldUser, null);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<User> findByBirthDateBetween(LocalDate from, LocalDate to) {
+        return new BirthDateRange(epochDay(from), null, epochDay(to));
+    }
+
+    @Override
+    public Collection<User> findByBirthDateBetween(LocalDate from, LocalDate to, UserCursor after) {
+        if (after.birthDate().isBefore(from)) {
+            return findByBirthDateBetween(from, to);
+        }
+        if (after.birthDate().isAfter(to)) {
+            return List.of();
+        }
+        return new BirthDateRange(epochDay(after.birthDate()), after.email(), epochDay(to));
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<User> iterator() {
+                return new AllUsersIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Map<String, Long> indexSizes() {
+        lock.readLock().lock();
+        try {
+            return Map.of("email", (long) size, "birthDate", birthDateIndexSize, "strings", (long) strings.count());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the rows without touching the birth date index, then builds the index in one pass: rows are
+     * grouped by day and each day is sorted by email once, instead of copying a day's array for every user.
+     */
+    @Override
+    public BulkLoad bulkLoad() {
+        if (size != 0) {
+            throw new IllegalStateException("Bulk load needs an empty store");
+        }
+        return new BulkLoad() {
+            @Override
+            public void add(User user) {
+                lock.writeLock().lock();
+                try {
+                    int row = rowOf(user.getEmail());
+                    if (row >= 0) {
+                        overwrite(row, user);
+                    } else {
+                        insertRow(user);
+                        size++;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+
+            @Override
+            public void finish() {
+                lock.writeLock().lock();
+                try {
+                    buildBirthDayIndex();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+
+    /**
+     * @return direct memory taken by columns and strings
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return columns.bytes() + strings.bytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addListener(UserStoreListener listener) {
+        listeners.add(listener);
+    }
+
+    private int rowOf(String email) {
+        long ref = strings.find(email);
+        return ref == Utf8Arena.NULL ? -1 : strings.userRow(ref);
+    }
+
+    /**
+     * Stores the user in a new row that is not in the birth date index yet.
+     */
+    private int insertRow(User user) {
+        int row = columns.allocate();
+        write(row, user);
+        try {
+            long email = strings.intern(user.getEmail());
+            columns.setLong(row, EMAIL, email);
+            strings.setUserRow(email, row);
+        } catch (RuntimeException e) {
+            releaseStrings(row);
+            columns.free(row);
+            throw e;
+        }
+        return row;
+    }
+
+    private void buildBirthDayIndex() {
+        Map<Long, DayRows> rowsByDay = new HashMap<>();
+        for (int row = 0; row < columns.rowCount(); row++) {
+            long birthDay = birthDayOf(row);
+            if (!columns.isFree(row) && birthDay != NULL_BIRTH_DAY) {
+                rowsByDay.computeIfAbsent(birthDay, day -> new DayRows()).add(row);
+            }
+        }
+
+        rowsByDay.forEach((birthDay, day) -> {
+            String[] emails = new String[day.count];
+            Integer[] order = new Integer[day.count];
+            for (int i = 0; i < day.count; i++) {
+                emails[i] = emailOf(day.rows[i]);
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(i -> emails[i]));
+            int[] sorted = new int[day.count];
+            for (int i = 0; i < day.count; i++) {
+                sorted[i] = day.rows[order[i]];
+            }
+            rowsByBirthDay.put(birthDay, sorted);
+            birthDateIndexSize += day.count;
+        });
+    }
+
+    /**
+     * Writes everything but the email, which identifies the row, so a new row only becomes reachable
+     * once all of its fields are written. The string columns are overwritten without giving back what they
+     * held, as the row may be new; {@link #overwrite} does that for a stored user. If interning fails, the
+     * row is left as it was.
+     */
+    private void write(int row, User user) {
+        String[] values = {user.getFirstName(), user.getLastName(), user.getAddress(), user.getPhoneNumber()};
+        long[] refs = new long[values.length];
+        Arrays.fill(refs, Utf8Arena.NULL);
+        try {
+            for (int i = 0; i < values.length; i++) {
+                refs[i] = strings.intern(values[i]);
+            }
+        } catch (RuntimeException e) {
+            for (long ref : refs) {
+                strings.release(ref);
+            }
+            throw e;
+        }
+        for (int i = 0; i < STRING_COLUMNS.length; i++) {
+            columns.setLong(row, STRING_COLUMNS[i], refs[i]);
+        }
+        columns.setLong(row, VERSION, user.getVersion() == null ? NULL_VERSION : user.getVersion());
+        columns.setLong(row, BIRTH_DAY, user.getBirthDate() == null ? NULL_BIRTH_DAY : epochDay(user.getBirthDate()));
+    }
+
+    /**
+     * Writes a stored user's fields and gives back the strings they held after interning the new ones,
+     * so an unchanged value is never freed in between.
+     */
+    private void overwrite(int row, User user) {
+        long[] oldRefs = new long[STRING_COLUMNS.length];
+        for (int i = 0; i < STRING_COLUMNS.length; i++) {
+            oldRefs[i] = columns.getLong(row, STRING_COLUMNS[i]);
+        }
+        write(row, user);
+        for (long ref : oldRefs) {
+            strings.release(ref);
+        }
+    }
+
+    private void releaseStrings(int row) {
+        for (int column : STRING_COLUMNS) {
+            strings.release(columns.getLong(row, column));
+        }
+    }
+
+    private void rewrite(int row, String email, User user) {
+        long oldBirthDay = birthDayOf(row);
+        overwrite(row, user);
+        long newBirthDay = birthDayOf(row);
+        if (oldBirthDay != newBirthDay) {
+            unindexBirthDay(row, oldBirthDay);
+            indexBirthDay(row, newBirthDay, email);
+        }
+    }
+
+    private User read(int row) {
+        long birthDay = birthDayOf(row);
+        long version = columns.getLong(row, VERSION);
+        return new User(
+                strings.get(columns.getLong(row, EMAIL)),
+                strings.get(columns.getLong(row, FIRST_NAME)),
+                strings.get(columns.getLong(row, LAST_NAME)),
+                birthDay == NULL_BIRTH_DAY ? null : LocalDate.ofEpochDay(birthDay),
+                strings.get(columns.getLong(row, ADDRESS)),
+                strings.get(columns.getLong(row, PHONE_NUMBER)),
+                version == NULL_VERSION ? null : version);
+    }
+
+    private long birthDayOf(int row) {
+        return columns.getLong(row, BIRTH_DAY);
+    }
+
+    private String emailOf(int row) {
+        return strings.get(columns.getLong(row, EMAIL));
+    }
+
+    private void indexBirthDay(int row, long birthDay, String email) {
+        if (birthDay == NULL_BIRTH_DAY) {
+            return;
+        }
+        int[] rows = rowsByBirthDay.getOrDefault(birthDay, NO_ROWS);
+        int position = upperBound(rows, email);
+        int[] newRows = new int[rows.length + 1];
+        System.arraycopy(rows, 0, newRows, 0, position);
+        newRows[position] = row;
+        System.arraycopy(rows, position, newRows, position + 1, rows.length - position);
+        rowsByBirthDay.put(birthDay, newRows);
+        birthDateIndexSize++;
+    }
+
+    private void unindexBirthDay(int row, long birthDay) {
+        int[] rows = rowsByBirthDay.get(birthDay);
+        if (rows == null) {
+            return;
+        }
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] == row) {
+                if (rows.length == 1) {
+                    rowsByBirthDay.remove(birthDay);
+                } else {
+                    int[] newRows = new int[rows.length - 1];
+                    System.arraycopy(rows, 0, newRows, 0, i);
+                    System.arraycopy(rows, i + 1, newRows, i, newRows.length - i);
+                    rowsByBirthDay.put(birthDay, newRows);
+                }
+                birthDateIndexSize--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return index of the first row whose email is greater than the given one
+     */
+    private int upperBound(int[] rows, String email) {
+        int low = 0;
+        int high = rows.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (emailOf(rows[middle]).compareTo(email) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void notifyListeners(User oldUser, User newUser) {
+        for (UserStoreListener listener : listeners) {
+            listener.onWrite(oldUser, newUser);
+        }
+    }
+
+    private static long epochDay(LocalDate date) {
+        return date.toEpochDay();
+    }
+
+    /**
+     * Rows of one birth day collected by a bulk load, in row order.
+     */
+    private static final class DayRows {
+
+        private int[] rows = new int[4];
+
+        private int count;
+
+        void add(int row) {
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+        }
+    }
+
+    /**
+     * Users born between two epoch days inclusive, starting after the email on the first day when it is set.
+     */
+    private final class BirthDateRange extends AbstractCollection<User> {
+
+        private final long fromDay;
+
+        private final String afterEmail;
+
+        private final long toDay;
+
+        private BirthDateRange(long fromDay, String afterEmail, long toDay) {
+            this.fromDay = fromDay;
+            this.afterEmail = afterEmail;
+            this.toDay = toDay;
+        }
+
+        @Override
+        public Iterator<User> iterator() {
+            return new ChunkIterator() {
+
+                private long day = fromDay;
+
+                private String after = afterEmail;
+
+                @Override
+                boolean readChunk(List<User> chunk) {
+                    for (Map.Entry<Long, int[]> entry : rowsByBirthDay.subMap(day, true, toDay, true).entrySet()) {
+                        int[] rows = entry.getValue();
+                        int i = entry.getKey() == day && after != null ? upperBound(rows, after) : 0;
+                        for (; i < rows.length; i++) {
+                            if (chunk.size() == READ_CHUNK) {
+                                User last = chunk.get(READ_CHUNK - 1);
+                                day = epochDay(last.getBirthDate());
+                                after = last.getEmail();
+                                return true;
+                            }
+                            chunk.add(read(rows[i]));
+                        }
+                    }
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            lock.readLock().lock();
+            try {
+                int size = 0;
+                for (Map.Entry<Long, int[]> entry : rowsByBirthDay.subMap(fromDay, true, toDay, true).entrySet()) {
+                    int[] rows = entry.getValue();
+                    size += entry.getKey() == fromDay && afterEmail != null
+                            ? rows.length - upperBound(rows, afterEmail)
+                            : rows.length;
+                }
+                return size;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private final class AllUsersIterator extends ChunkIterator {
+
+        private int nextRow;
+
+        @Override
+        boolean readChunk(List<User> chunk) {
+            for (; nextRow < columns.rowCount(); nextRow++) {
+                if (chunk.size() == READ_CHUNK) {
+                    return true;
+                }
+                if (!columns.isFree(nextRow)) {
+                    chunk.add(read(nextRow));
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Iterates users materialized a chunk at a time under the read lock.
+     */
+    private abstract class ChunkIterator implements Iterator<User> {
+
+        private final List<User> chunk = new ArrayList<>(READ_CHUNK);
+
+        private int position;
+
+        private boolean more = true;
+
+        /**
+         * Adds up to {@link #READ_CHUNK} users following the previous chunk, called under the read lock.
+         *
+         * @return false if the chunk holds the last users
+         */
+        abstract boolean readChunk(List<User> chunk);
+
+        @Override
+        public boolean hasNext() {
+            if (position < chunk.size()) {
+                return true;
+            }
+            if (!more) {
+                return false;
+            }
+
+            chunk.clear();
+            position = 0;
+            lock.readLock().lock();
+            try {
+                more = readChunk(chunk);
+            } finally {
+                lock.readLock().unlock();
+            }
+            return !chunk.isEmpty();
+        }
+
+        @Override
+        public User next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.get(position++);
+        }
+    }
+}
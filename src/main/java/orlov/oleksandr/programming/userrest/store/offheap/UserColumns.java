@@ -0,0 +1,101 @@
+package orlov.oleksandr.programming.userrest.store.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * User fields as off-heap columns in fixed-size segments of rows: one long column per string field holding
+ * its {@link Utf8Arena} reference, a long version column and a long birth date column in epoch days, which
+ * holds every {@link java.time.LocalDate} from {@code MIN} to {@code MAX}.
+ * Rows of removed users are reused by later inserts. A free row has {@link Utf8Arena#NULL} as its email.
+ * <p>
+ * Not thread safe; {@link OffHeapUserStore} guards it with its lock.
+ */
+final class UserColumns {
+
+    static final int EMAIL = 0;
+
+    static final int FIRST_NAME = 1;
+
+    static final int LAST_NAME = 2;
+
+    static final int ADDRESS = 3;
+
+    static final int PHONE_NUMBER = 4;
+
+    static final int VERSION = 5;
+
+    static final int BIRTH_DAY = 6;
+
+    static final long NULL_VERSION = Long.MIN_VALUE;
+
+    static final long NULL_BIRTH_DAY = Long.MIN_VALUE;
+
+    private static final int LONG_COLUMNS = 7;
+
+    private static final int SEGMENT_SHIFT = 16;
+
+    private static final int SEGMENT_ROWS = 1 << SEGMENT_SHIFT;
+
+    private static final int SEGMENT_BYTES = LONG_COLUMNS * SEGMENT_ROWS * Long.BYTES;
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+
+    private int rowCount;
+
+    private int[] freeRows = new int[16];
+
+    private int freeCount;
+
+    int allocate() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (rowCount == segments.size() * SEGMENT_ROWS) {
+            segments.add(ByteBuffer.allocateDirect(SEGMENT_BYTES).order(ByteOrder.nativeOrder()));
+        }
+        return rowCount++;
+    }
+
+    void free(int row) {
+        setLong(row, EMAIL, Utf8Arena.NULL);
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    boolean isFree(int row) {
+        return getLong(row, EMAIL) == Utf8Arena.NULL;
+    }
+
+    /**
+     * @return rows ever allocated, including free ones
+     */
+    int rowCount() {
+        return rowCount;
+    }
+
+    long getLong(int row, int column) {
+        return segment(row).getLong(longIndex(row, column));
+    }
+
+    void setLong(int row, int column, long value) {
+        segment(row).putLong(longIndex(row, column), value);
+    }
+
+    long bytes() {
+        return (long) segments.size() * SEGMENT_BYTES;
+    }
+
+    private ByteBuffer segment(int row) {
+        return segments.get(row >>> SEGMENT_SHIFT);
+    }
+
+    private static int longIndex(int row, int column) {
+        return (column * SEGMENT_ROWS + (row & (SEGMENT_ROWS - 1))) * Long.BYTES;
+    }
+}
@@ -0,0 +1,311 @@
+package orlov.oleksandr.programming.userrest.store.offheap;
+
+import orlov.oleksandr.programming.userrest.store.Hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Off-heap store of distinct strings as UTF-8. Interning a string that is already stored returns the reference
+ * of the stored copy, so repeated names and addresses take space once.
+ * <p>
+ * Every {@link #intern} counts a reference that the caller gives back with {@link #release} once it no longer
+ * stores it. A string whose count drops to zero leaves the table and its block goes on a free list of its size
+ * class, where the next string of that class takes it, so replaced field values and removed users don't make
+ * the arena grow. Blocks are rounded up to 16 bytes, or to a power of two above 512 bytes, which bounds the
+ * number of classes and the space lost to rounding.
+ * <p>
+ * Entries are {@code [int hash][int user row][int length][int references][bytes]} in direct chunks and are found
+ * through an off-heap open addressing table of references. The user row is the row of the user whose email the
+ * string is, so the table doubles as the email index. A free block holds the reference of the next free block
+ * of its class in place of the hash and user row.
+ * <p>
+ * Not thread safe; {@link OffHeapUserStore} guards it with its lock.
+ */
+final class Utf8Arena {
+
+    static final long NULL = -1;
+
+    private static final int CHUNK_SIZE = 1 << 24;
+
+    private static final int HASH = 0;
+
+    private static final int USER_ROW = 4;
+
+    private static final int LENGTH = 8;
+
+    private static final int REFERENCES = 12;
+
+    private static final int HEADER = 16;
+
+    private static final int NEXT_FREE = 0;
+
+    private static final int SMALL_BLOCK_LIMIT = 512;
+
+    private static final int BLOCK_ALIGNMENT = 16;
+
+    private static final int INITIAL_TABLE_CAPACITY = 1 << 16;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    private int chunkUsed;
+
+    /**
+     * First free block of each size class, or {@link #NULL}.
+     */
+    private final long[] freeBlocks = new long[64];
+
+    /**
+     * Slot value is the reference plus one, so the zeroed memory of a new table is empty.
+     */
+    private ByteBuffer table = allocate((long) INITIAL_TABLE_CAPACITY * Long.BYTES);
+
+    private int tableCapacity = INITIAL_TABLE_CAPACITY;
+
+    private int count;
+
+    private long bytes;
+
+    Utf8Arena() {
+        Arrays.fill(freeBlocks, NULL);
+    }
+
+    /**
+     * Counts one more reference to the stored copy, which must be given back with {@link #release}.
+     *
+     * @return the reference of the stored copy of the value, or {@link #NULL} for null
+     */
+    long intern(String value) {
+        if (value == null) {
+            return NULL;
+        }
+
+        int hash = value.hashCode();
+        int slot = findSlot(value, hash);
+        long entry = table.getLong(slot * Long.BYTES);
+        if (entry != 0) {
+            long ref = entry - 1;
+            ByteBuffer chunk = chunk(ref);
+            chunk.putInt(offset(ref) + REFERENCES, chunk.getInt(offset(ref) + REFERENCES) + 1);
+            return ref;
+        }
+
+        long ref = store(value, hash);
+        table.putLong(slot * Long.BYTES, ref + 1);
+        if (++count * 2 > tableCapacity) {
+            resize();
+        }
+        return ref;
+    }
+
+    /**
+     * Gives back one reference counted by {@link #intern}; the string is freed with the last one.
+     */
+    void release(long ref) {
+        if (ref == NULL) {
+            return;
+        }
+        ByteBuffer chunk = chunk(ref);
+        int offset = offset(ref);
+        int references = chunk.getInt(offset + REFERENCES) - 1;
+        chunk.putInt(offset + REFERENCES, references);
+        if (references > 0) {
+            return;
+        }
+
+        removeFromTable(ref, chunk.getInt(offset + HASH));
+        count--;
+        int sizeClass = sizeClass(HEADER + chunk.getInt(offset + LENGTH));
+        chunk.putLong(offset + NEXT_FREE, freeBlocks[sizeClass]);
+        freeBlocks[sizeClass] = ref;
+    }
+
+    /**
+     * @return the reference of the stored value, or {@link #NULL} if it isn't stored
+     */
+    long find(String value) {
+        long entry = table.getLong(findSlot(value, value.hashCode()) * Long.BYTES);
+        return entry - 1;
+    }
+
+    String get(long ref) {
+        if (ref == NULL) {
+            return null;
+        }
+        ByteBuffer chunk = chunk(ref);
+        int offset = offset(ref);
+        byte[] utf8 = new byte[chunk.getInt(offset + LENGTH)];
+        chunk.get(offset + HEADER, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the row of the user with this email, or -1
+     */
+    int userRow(long ref) {
+        return chunk(ref).getInt(offset(ref) + USER_ROW);
+    }
+
+    void setUserRow(long ref, int row) {
+        chunk(ref).putInt(offset(ref) + USER_ROW, row);
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * @return off-heap bytes allocated for strings and the table
+     */
+    long bytes() {
+        return bytes;
+    }
+
+    private int findSlot(String value, int hash) {
+        int mask = tableCapacity - 1;
+        for (int slot = Hashing.mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            long entry = table.getLong(slot * Long.BYTES);
+            if (entry == 0 || matches(entry - 1, value, hash)) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean matches(long ref, String value, int hash) {
+        ByteBuffer chunk = chunk(ref);
+        int offset = offset(ref);
+        if (chunk.getInt(offset + HASH) != hash) {
+            return false;
+        }
+
+        int length = chunk.getInt(offset + LENGTH);
+        int position = offset + HEADER;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                return Arrays.equals(value.getBytes(StandardCharsets.UTF_8), utf8(chunk, offset, length));
+            }
+            if (position - offset - HEADER >= length || chunk.get(position++) != c) {
+                return false;
+            }
+        }
+        return position - offset - HEADER == length;
+    }
+
+    private long store(String value, int hash) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        int sizeClass = sizeClass(HEADER + utf8.length);
+        long ref = freeBlocks[sizeClass];
+        if (ref != NULL) {
+            freeBlocks[sizeClass] = chunk(ref).getLong(offset(ref) + NEXT_FREE);
+        } else {
+            ref = append(blockSize(sizeClass));
+        }
+
+        ByteBuffer chunk = chunk(ref);
+        int offset = offset(ref);
+        chunk.putInt(offset + HASH, hash);
+        chunk.putInt(offset + USER_ROW, -1);
+        chunk.putInt(offset + LENGTH, utf8.length);
+        chunk.putInt(offset + REFERENCES, 1);
+        chunk.put(offset + HEADER, utf8);
+        return ref;
+    }
+
+    private long append(int size) {
+        if (chunks.isEmpty() || chunkUsed + size > chunks.get(chunks.size() - 1).capacity()) {
+            chunks.add(allocate(Math.max(CHUNK_SIZE, size)));
+            chunkUsed = 0;
+        }
+        int offset = chunkUsed;
+        chunkUsed += size;
+        return ((long) (chunks.size() - 1) << 32) | offset;
+    }
+
+    /**
+     * Empties the slot of the reference and moves later entries of its probe sequence back into the gap,
+     * so lookups still find them without tombstones.
+     */
+    private void removeFromTable(long ref, int hash) {
+        int mask = tableCapacity - 1;
+        int hole = Hashing.mix(hash) & mask;
+        while (table.getLong(hole * Long.BYTES) != ref + 1) {
+            hole = (hole + 1) & mask;
+        }
+        for (int slot = (hole + 1) & mask; ; slot = (slot + 1) & mask) {
+            long entry = table.getLong(slot * Long.BYTES);
+            if (entry == 0) {
+                break;
+            }
+            int home = Hashing.mix(chunk(entry - 1).getInt(offset(entry - 1) + HASH)) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                table.putLong(hole * Long.BYTES, entry);
+                hole = slot;
+            }
+        }
+        table.putLong(hole * Long.BYTES, 0);
+    }
+
+    /**
+     * Classes 0 to 32 hold blocks of {@code 16 * class} bytes up to 512, the ones above a power of two each.
+     */
+    private static int sizeClass(int size) {
+        if (size <= SMALL_BLOCK_LIMIT) {
+            return (size + BLOCK_ALIGNMENT - 1) / BLOCK_ALIGNMENT;
+        }
+        int log2 = 32 - Integer.numberOfLeadingZeros(size - 1);
+        return SMALL_BLOCK_LIMIT / BLOCK_ALIGNMENT + log2 - 9;
+    }
+
+    private static int blockSize(int sizeClass) {
+        int smallClasses = SMALL_BLOCK_LIMIT / BLOCK_ALIGNMENT;
+        return sizeClass <= smallClasses ? sizeClass * BLOCK_ALIGNMENT : 1 << (sizeClass - smallClasses + 9);
+    }
+
+    private void resize() {
+        ByteBuffer oldTable = table;
+        int oldCapacity = tableCapacity;
+        tableCapacity = oldCapacity * 2;
+        table = allocate((long) tableCapacity * Long.BYTES);
+        bytes -= (long) oldCapacity * Long.BYTES;
+
+        int mask = tableCapacity - 1;
+        for (int i = 0; i < oldCapacity; i++) {
+            long entry = oldTable.getLong(i * Long.BYTES);
+            if (entry == 0) {
+                continue;
+            }
+            int slot = Hashing.mix(chunk(entry - 1).getInt(offset(entry - 1) + HASH)) & mask;
+            while (table.getLong(slot * Long.BYTES) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table.putLong(slot * Long.BYTES, entry);
+        }
+    }
+
+    private static byte[] utf8(ByteBuffer chunk, int offset, int length) {
+        byte[] utf8 = new byte[length];
+        chunk.get(offset + HEADER, utf8);
+        return utf8;
+    }
+
+    private ByteBuffer chunk(long ref) {
+        return chunks.get((int) (ref >>> 32));
+    }
+
+    private static int offset(long ref) {
+        return (int) ref;
+    }
+
+    private ByteBuffer allocate(long size) {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Off-heap buffer too large: " + size);
+        }
+        bytes += size;
+        return ByteBuffer.allocateDirect((int) size).order(ByteOrder.nativeOrder());
+    }
+}
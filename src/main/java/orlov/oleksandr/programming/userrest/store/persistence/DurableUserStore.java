@@ -0,0 +1,122 @@
+package orlov.oleksandr.programming.userrest.store.persistence;
+
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserCursor;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+import orlov.oleksandr.programming.userrest.store.UserStoreListener;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Makes every successful write wait until it is durable before returning. The wait happens after
+ * the store has released its lock for the email, so writers to other users are never blocked on disk.
+ * <p>
+ * Once the write-ahead log has failed the store is read-only: writes throw
+ * {@link java.io.UncheckedIOException} before they change anything.
+ */
+public class DurableUserStore implements UserStore {
+
+    private final UserStore delegate;
+
+    private final UserStorePersistence persistence;
+
+    public DurableUserStore(UserStore delegate, UserStorePersistence persistence) {
+        this.delegate = delegate;
+        this.persistence = persistence;
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public boolean insertIfAbsent(User user) {
+        persistence.checkWritable();
+        boolean inserted = delegate.insertIfAbsent(user);
+        if (inserted) {
+            persistence.awaitDurable();
+        }
+        return inserted;
+    }
+
+    @Override
+    public Optional<User> replace(User user) {
+        persistence.checkWritable();
+        Optional<User> previous = delegate.replace(user);
+        if (previous.isPresent()) {
+            persistence.awaitDurable();
+        }
+        return previous;
+    }
+
+    @Override
+    public Optional<User> update(String email, UnaryOperator<User> updater) {
+        persistence.checkWritable();
+        Optional<User> updated = delegate.update(email, updater);
+        if (updated.isPresent()) {
+            persistence.awaitDurable();
+        }
+        return updated;
+    }
+
+    @Override
+    public boolean remove(User user) {
+        persistence.checkWritable();
+        boolean removed = delegate.remove(user);
+        if (removed) {
+            persistence.awaitDurable();
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean removeIf(String email, Predicate<User> condition) {
+        persistence.checkWritable();
+        boolean removed = delegate.removeIf(email, condition);
+        if (removed) {
+            persistence.awaitDurable();
+        }
+        return removed;
+    }
+
+    @Override
+    public Collection<User> findByBirthDateBetween(LocalDate from, LocalDate to) {
+        return delegate.findByBirthDateBetween(from, to);
+    }
+
+    @Override
+    public Collection<User> findByBirthDateBetween(LocalDate from, LocalDate to, UserCursor after) {
+        return delegate.findByBirthDateBetween(from, to, after);
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public Map<String, Long> indexSizes() {
+        return delegate.indexSizes();
+    }
+
+    @Override
+    public void addListener(UserStoreListener listener) {
+        delegate.addListener(listener);
+    }
+
+    @Override
+    public BulkLoad bulkLoad() {
+        return delegate.bulkLoad();
+    }
+}
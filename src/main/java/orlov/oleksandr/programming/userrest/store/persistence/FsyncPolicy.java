@@ -0,0 +1,20 @@
+package orlov.oleksandr.programming.userrest.store.persistence;
+
+/**
+ * When the write-ahead log is forced to disk.
+ */
+public enum FsyncPolicy {
+    /**
+     * Every write waits until it is on disk. Writes arriving together share one fsync.
+     */
+    ALWAYS,
+    /**
+     * The log is written and forced every {@code user.persistence.fsync-interval-ms}; writes don't wait.
+     * A crash loses at most that window.
+     */
+    INTERVAL,
+    /**
+     * The log is written as soon as possible but never forced; the OS decides when it reaches the disk.
+     */
+    NONE
+}
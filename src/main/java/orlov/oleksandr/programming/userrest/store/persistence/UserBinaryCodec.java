@@ -0,0 +1,103 @@
+package orlov.oleksandr.programming.userrest.store.persistence;
+
+import orlov.oleksandr.programming.userrest.model.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Compact binary form of a {@link User}: birthDate as an epoch-day int followed by email, firstName, lastName,
+ * address and phoneNumber as {@code [int length][UTF-8 bytes]}, where length -1 means null, and the version
+ * as a long.
+ * <p>
+ * Birth dates whose epoch day doesn't fit into an int (or null) are written as {@link #WIDE_DATE} followed by
+ * the epoch day as a long, so the common case stays four bytes.
+ * <p>
+ * Decoding reuses one scratch array, so a codec instance must not be shared between threads.
+ */
+public final class UserBinaryCodec {
+
+    private static final int WIDE_DATE = Integer.MIN_VALUE;
+
+    private static final long NULL_DATE = Long.MIN_VALUE;
+
+    private static final int NULL_STRING = -1;
+
+    private byte[] scratch = new byte[128];
+
+    public static byte[] encode(User user) {
+        byte[] email = toBytes(user.getEmail());
+        byte[] firstName = toBytes(user.getFirstName());
+        byte[] lastName = toBytes(user.getLastName());
+        byte[] address = toBytes(user.getAddress());
+        byte[] phoneNumber = toBytes(user.getPhoneNumber());
+
+        long epochDay = user.getBirthDate() == null ? NULL_DATE : user.getBirthDate().toEpochDay();
+        boolean wideDate = epochDay <= WIDE_DATE || epochDay > Integer.MAX_VALUE;
+
+        int size = Integer.BYTES + (wideDate ? Long.BYTES : 0) + Integer.BYTES * 5
+                + length(email) + length(firstName) + length(lastName) + length(address) + length(phoneNumber)
+                + Long.BYTES;
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        if (wideDate) {
+            buffer.putInt(WIDE_DATE).putLong(epochDay);
+        } else {
+            buffer.putInt((int) epochDay);
+        }
+        putString(buffer, email);
+        putString(buffer, firstName);
+        putString(buffer, lastName);
+        putString(buffer, address);
+        putString(buffer, phoneNumber);
+        buffer.putLong(user.getVersion() == null ? 0 : user.getVersion());
+        return buffer.array();
+    }
+
+    /**
+     * Reads one user starting at the buffer's position and advances the position past it.
+     */
+    public User decode(ByteBuffer buffer) {
+        int epochDay = buffer.getInt();
+        long wideEpochDay = epochDay == WIDE_DATE ? buffer.getLong() : epochDay;
+
+        return User.builder()
+                .birthDate(wideEpochDay == NULL_DATE ? null : LocalDate.ofEpochDay(wideEpochDay))
+                .email(getString(buffer))
+                .firstName(getString(buffer))
+                .lastName(getString(buffer))
+                .address(getString(buffer))
+                .phoneNumber(getString(buffer))
+                .version(buffer.getLong())
+                .build();
+    }
+
+    private String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] toBytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(NULL_STRING);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package orlov.oleksandr.programming.userrest.store.persistence;
+
+import orlov.oleksandr.programming.userrest.model.User;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Binary snapshot of all users: a header {@code [int magic][int version][long walGeneration][long userCount]}
+ * followed by {@code [int length][user]} records in the {@link UserBinaryCodec} format.
+ * <p>
+ * Loading maps the file with {@link FileChannel#map} in windows of at most {@link #MAX_WINDOW_SIZE} bytes
+ * and decodes users straight from the mapping, without intermediate text or per-record byte arrays.
+ */
+public final class UserSnapshot {
+
+    private static final int MAGIC = 0x55534E50;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES * 2;
+
+    private static final int COUNT_OFFSET = Integer.BYTES * 2 + Long.BYTES;
+
+    private static final int MAX_WINDOW_SIZE = 256 * 1024 * 1024;
+
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+    private UserSnapshot() {
+    }
+
+    /**
+     * Writes the users to a temporary file, forces it and atomically moves it over {@code file}.
+     *
+     * @return number of written users
+     */
+    public static long write(Path file, long walGeneration, Iterable<User> users) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(walGeneration).putLong(0);
+
+            for (User user : users) {
+                byte[] record = UserBinaryCodec.encode(user);
+                if (buffer.remaining() < Integer.BYTES + record.length) {
+                    drain(channel, buffer);
+                }
+                if (buffer.remaining() < Integer.BYTES + record.length) {
+                    drain(channel, ByteBuffer.allocate(Integer.BYTES + record.length).putInt(record.length).put(record));
+                } else {
+                    buffer.putInt(record.length).put(record);
+                }
+                count++;
+            }
+            drain(channel, buffer);
+
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, count), COUNT_OFFSET);
+            channel.force(true);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * Passes every user of the snapshot to the consumer in file order.
+     *
+     * @return WAL generation stored in the header: the first segment that is not covered by the snapshot
+     */
+    public static long load(Path file, Consumer<User> consumer) throws IOException {
+        return load(file, consumer, MAX_WINDOW_SIZE);
+    }
+
+    static long load(Path file, Consumer<User> consumer, int maxWindowSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Snapshot is too short: " + file);
+            }
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Unsupported snapshot format: " + file);
+            }
+            long walGeneration = header.getLong();
+            long count = header.getLong();
+
+            UserBinaryCodec codec = new UserBinaryCodec();
+            long position = HEADER_SIZE;
+            long loaded = 0;
+            while (loaded < count) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(maxWindowSize, size - position));
+                while (loaded < count && window.remaining() >= Integer.BYTES) {
+                    int length = window.getInt(window.position());
+                    if (length < 0 || window.remaining() - Integer.BYTES < length) {
+                        break;
+                    }
+                    window.position(window.position() + Integer.BYTES);
+                    consumer.accept(decode(codec, window, length, file));
+                    loaded++;
+                }
+                if (window.position() == 0) {
+                    throw new IOException("Snapshot is truncated after " + loaded + " of " + count + " users: " + file);
+                }
+                position += window.position();
+            }
+            return walGeneration;
+        }
+    }
+
+    private static User decode(UserBinaryCodec codec, ByteBuffer window, int length, Path file) throws IOException {
+        int end = window.position() + length;
+        try {
+            User user = codec.decode(window.limit(end));
+            if (window.position() != end) {
+                throw new IOException("Corrupted record at " + (end - length) + " in " + file);
+            }
+            return user;
+        } catch (BufferUnderflowException | BufferOverflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupted record at " + (end - length) + " in " + file, e);
+        } finally {
+            window.limit(window.capacity());
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
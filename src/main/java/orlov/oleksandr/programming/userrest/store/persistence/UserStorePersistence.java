@@ -0,0 +1,160 @@
+package orlov.oleksandr.programming.userrest.store.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+import orlov.oleksandr.programming.userrest.store.UserStoreListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Makes a {@link UserStore} survive restarts with a {@link WriteAheadLog} and periodic snapshots.
+ * <p>
+ * Every write is logged as the full new state of the user (or the removed user), so replaying a record
+ * twice gives the same result. A snapshot first rotates the log and then dumps the store while writes
+ * continue; records in the new segment may already be in the snapshot, which is harmless because replay
+ * is idempotent. Recovery bulk loads the latest snapshot into the store and then replays all segments from
+ * the one it names through the normal write path.
+ */
+@Slf4j
+public class UserStorePersistence implements UserStoreListener, Closeable {
+
+    private static final String SNAPSHOT_FILE = "users.snapshot";
+
+    /**
+     * Sequence of the last record logged by each thread. Listeners run on the writing thread, so a writer
+     * waits for its own record only and not for the ones appended by writers that came after it.
+     */
+    private final ThreadLocal<long[]> lastAppended = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final Path directory;
+
+    private final FsyncPolicy fsyncPolicy;
+
+    private final long fsyncIntervalMs;
+
+    private WriteAheadLog wal;
+
+    private UserStore userStore;
+
+    public UserStorePersistence(Path directory, FsyncPolicy fsyncPolicy, long fsyncIntervalMs) {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMs = fsyncIntervalMs;
+    }
+
+    /**
+     * Loads the snapshot and the log into the empty store, then starts logging its writes.
+     */
+    public void recover(UserStore userStore) throws IOException {
+        Files.createDirectories(directory);
+
+        long firstGeneration = loadSnapshot(userStore);
+        long lastGeneration = firstGeneration - 1;
+        long records = 0;
+        UserBinaryCodec codec = new UserBinaryCodec();
+        for (long generation : WriteAheadLog.listGenerations(directory)) {
+            if (generation >= firstGeneration) {
+                records += WriteAheadLog.replay(directory, generation,
+                        (type, payload) -> apply(userStore, codec, type, payload));
+            }
+            lastGeneration = Math.max(lastGeneration, generation);
+        }
+
+        wal = WriteAheadLog.open(directory, lastGeneration + 1, fsyncPolicy, fsyncIntervalMs);
+        this.userStore = userStore;
+        userStore.addListener(this);
+
+        log.info("Recovered {} users from {} ({} log records replayed)", userStore.size(), directory, records);
+    }
+
+    @Override
+    public void onWrite(User oldUser, User newUser) {
+        long sequence = newUser != null
+                ? wal.append(WriteAheadLog.PUT, UserBinaryCodec.encode(newUser))
+                : wal.append(WriteAheadLog.DELETE, UserBinaryCodec.encode(oldUser));
+        lastAppended.get()[0] = sequence;
+    }
+
+    /**
+     * Blocks until the last write logged by the calling thread is durable according to the {@link FsyncPolicy}.
+     *
+     * @throws java.io.UncheckedIOException if the log can no longer be written
+     */
+    public void awaitDurable() {
+        wal.awaitDurable(lastAppended.get()[0]);
+    }
+
+    /**
+     * @throws java.io.UncheckedIOException if the log can no longer be written, so writes must be rejected
+     */
+    public void checkWritable() {
+        wal.checkWritable();
+    }
+
+    @Scheduled(initialDelayString = "${user.persistence.snapshot-interval-ms}",
+            fixedDelayString = "${user.persistence.snapshot-interval-ms}")
+    public void snapshot() throws IOException {
+        if (userStore == null) {
+            return;
+        }
+
+        long generation = wal.rotate();
+        long users = UserSnapshot.write(directory.resolve(SNAPSHOT_FILE), generation, userStore.findAll());
+
+        List<Long> generations = WriteAheadLog.listGenerations(directory);
+        for (long oldGeneration : generations) {
+            if (oldGeneration < generation) {
+                WriteAheadLog.deleteSegment(directory, oldGeneration);
+            }
+        }
+
+        log.info("Wrote snapshot of {} users to {}", users, directory);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    /**
+     * @return generation of the first log segment that is not covered by the snapshot
+     */
+    private long loadSnapshot(UserStore userStore) throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(snapshot)) {
+            return 0;
+        }
+
+        UserStore.BulkLoad load = userStore.bulkLoad();
+        long generation = UserSnapshot.load(snapshot, load::add);
+        load.finish();
+        return generation;
+    }
+
+    private static void apply(UserStore userStore, UserBinaryCodec codec, byte type, byte[] payload)
+            throws IOException {
+        User user = codec.decode(ByteBuffer.wrap(payload));
+        if (type == WriteAheadLog.PUT) {
+            put(userStore, user);
+        } else if (type == WriteAheadLog.DELETE) {
+            userStore.remove(user);
+        } else {
+            throw new IOException("Unknown write-ahead log record type: " + type);
+        }
+    }
+
+    private static void put(UserStore userStore, User user) {
+        if (!userStore.insertIfAbsent(user)) {
+            userStore.replace(user);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package orlov.oleksandr.programming.userrest.store.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of user writes, split into numbered segment files {@code wal-<generation>.log}.
+ * <p>
+ * Writers only frame a record and add it to an in-memory queue. A single flusher thread writes the whole
+ * queue to the current segment with one gathering {@link FileChannel#write} and, unless the policy is
+ * {@link FsyncPolicy#NONE}, one {@link FileChannel#force}, so all writers that arrived during the previous
+ * fsync share the next one (group commit).
+ * <p>
+ * Each record is framed as {@code [int length][int crc32][byte type][payload]}; replay stops at the first
+ * truncated or corrupted record, which is what a crash in the middle of a write leaves behind.
+ * <p>
+ * Once the flusher fails to write, the log stays failed: queued records are dropped and every later
+ * {@link #append} and {@link #awaitDurable} throws, whatever the policy, so writes can't report success
+ * without ever reaching the disk.
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+
+    public static final byte PUT = 1;
+
+    public static final byte DELETE = 2;
+
+    private static final String SEGMENT_PREFIX = "wal-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final int FRAME_HEADER_SIZE = Integer.BYTES * 2 + 1;
+
+    private final Path directory;
+
+    private final FsyncPolicy fsyncPolicy;
+
+    private final long fsyncIntervalNanos;
+
+    /**
+     * Guards the queue and the sequence numbers.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition recordsAppended = lock.newCondition();
+
+    private final Condition recordsDurable = lock.newCondition();
+
+    /**
+     * Held while the channel is written or switched, always acquired before {@link #lock}.
+     */
+    private final ReentrantLock ioLock = new ReentrantLock();
+
+    private final SegmentOpener segmentOpener;
+
+    private final Thread flusher;
+
+    private List<ByteBuffer> pending = new ArrayList<>();
+
+    private long appendedSequence;
+
+    private long durableSequence;
+
+    private IOException failure;
+
+    private volatile boolean running = true;
+
+    private FileChannel channel;
+
+    private long generation;
+
+    private WriteAheadLog(Path directory, long generation, FsyncPolicy fsyncPolicy, long fsyncIntervalMs,
+                          SegmentOpener segmentOpener) throws IOException {
+        this.directory = directory;
+        this.generation = generation;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMs);
+        this.segmentOpener = segmentOpener;
+        this.channel = openSegment(generation);
+        this.flusher = new Thread(this::flushLoop, "user-wal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Opens a new, empty segment with the given generation and starts the flusher thread.
+     */
+    public static WriteAheadLog open(Path directory, long generation, FsyncPolicy fsyncPolicy, long fsyncIntervalMs)
+            throws IOException {
+        return open(directory, generation, fsyncPolicy, fsyncIntervalMs,
+                segment -> FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+    }
+
+    static WriteAheadLog open(Path directory, long generation, FsyncPolicy fsyncPolicy, long fsyncIntervalMs,
+                              SegmentOpener segmentOpener) throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory, generation, fsyncPolicy, fsyncIntervalMs, segmentOpener);
+        wal.flusher.start();
+        return wal;
+    }
+
+    /**
+     * @return generations of all segments in the directory in ascending order
+     */
+    public static List<Long> listGenerations(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name, SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length(), 10))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Feeds every intact record of the segment to the handler in log order.
+     *
+     * @return number of replayed records
+     */
+    public static long replay(Path directory, long generation, RecordHandler handler) throws IOException {
+        Path segment = segmentPath(directory, generation);
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        CRC32 crc = new CRC32();
+
+        long records = 0;
+        while (buffer.remaining() >= FRAME_HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || buffer.remaining() < length + 1) {
+                log.warn("Truncated record at {} in {}, ignoring the rest of the segment", start, segment);
+                return records;
+            }
+
+            crc.reset();
+            crc.update(buffer.slice(buffer.position(), length + 1));
+            if ((int) crc.getValue() != checksum) {
+                log.warn("Corrupted record at {} in {}, ignoring the rest of the segment", start, segment);
+                return records;
+            }
+
+            byte type = buffer.get();
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            handler.handle(type, payload);
+            records++;
+        }
+        if (buffer.hasRemaining()) {
+            log.warn("Truncated record at {} in {}, ignoring the rest of the segment", buffer.position(), segment);
+        }
+        return records;
+    }
+
+    public static void deleteSegment(Path directory, long generation) throws IOException {
+        Files.deleteIfExists(segmentPath(directory, generation));
+    }
+
+    /**
+     * Queues a record without blocking on I/O.
+     *
+     * @return sequence number of the record, to be passed to {@link #awaitDurable(long)}
+     * @throws UncheckedIOException if the log can no longer be written
+     */
+    public long append(byte type, byte[] payload) {
+        ByteBuffer record = frame(type, payload);
+
+        lock.lock();
+        try {
+            checkNotFailed();
+            pending.add(record);
+            appendedSequence++;
+            if (fsyncPolicy != FsyncPolicy.INTERVAL) {
+                recordsAppended.signal();
+            }
+            return appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @throws UncheckedIOException if the log can no longer be written
+     */
+    public void checkWritable() {
+        lock.lock();
+        try {
+            checkNotFailed();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * With {@link FsyncPolicy#ALWAYS} blocks until the record with the given sequence number is on disk,
+     * with any other policy returns immediately unless the log has failed.
+     *
+     * @throws UncheckedIOException if the log can no longer be written
+     */
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            checkNotFailed();
+            if (fsyncPolicy != FsyncPolicy.ALWAYS) {
+                return;
+            }
+            while (durableSequence < sequence) {
+                recordsDurable.awaitUninterruptibly();
+                checkNotFailed();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces everything appended so far into the current segment and starts a new one.
+     * Records appended after this call returns go to the new segment.
+     *
+     * @return generation of the new segment
+     */
+    public long rotate() throws IOException {
+        ioLock.lock();
+        try {
+            flushPending(true);
+            channel.close();
+            generation++;
+            channel = openSegment(generation);
+            return generation;
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        lock.lock();
+        try {
+            recordsAppended.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        ioLock.lock();
+        try {
+            flushPending(fsyncPolicy != FsyncPolicy.NONE);
+            channel.close();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                awaitRecords();
+                ioLock.lock();
+                try {
+                    flushPending(fsyncPolicy != FsyncPolicy.NONE);
+                } finally {
+                    ioLock.unlock();
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Can't write the write-ahead log in {}", directory, e);
+                lock.lock();
+                try {
+                    failure = e instanceof IOException io ? io : new IOException(e);
+                    pending = new ArrayList<>();
+                    recordsDurable.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+        }
+    }
+
+    private void awaitRecords() {
+        lock.lock();
+        try {
+            if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+                recordsAppended.awaitNanos(fsyncIntervalNanos);
+            } else {
+                while (pending.isEmpty() && running) {
+                    recordsAppended.await();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Must be called with {@link #ioLock} held.
+     */
+    private void flushPending(boolean force) throws IOException {
+        List<ByteBuffer> batch;
+        long batchSequence;
+        lock.lock();
+        try {
+            batch = pending;
+            batchSequence = appendedSequence;
+            pending = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+
+        if (!batch.isEmpty()) {
+            ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+            long remaining = batch.stream().mapToLong(ByteBuffer::remaining).sum();
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+            if (force) {
+                channel.force(false);
+            }
+        }
+
+        lock.lock();
+        try {
+            durableSequence = batchSequence;
+            recordsDurable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Must be called with {@link #lock} held.
+     */
+    private void checkNotFailed() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log is not writable", failure);
+        }
+    }
+
+    private FileChannel openSegment(long generation) throws IOException {
+        return segmentOpener.open(segmentPath(directory, generation));
+    }
+
+    private static Path segmentPath(Path directory, long generation) {
+        return directory.resolve(SEGMENT_PREFIX + generation + SEGMENT_SUFFIX);
+    }
+
+    private static ByteBuffer frame(byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+
+        ByteBuffer record = ByteBuffer.allocate(FRAME_HEADER_SIZE + payload.length);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(type);
+        record.put(payload);
+        return record.flip();
+    }
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        void handle(byte type, byte[] payload) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface SegmentOpener {
+        FileChannel open(Path segment) throws IOException;
+    }
+}
@@ -0,0 +1,123 @@
+package orlov.oleksandr.programming.userrest.validation;
+
+import org.springframework.stereotype.Component;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.service.impl.BirthDateCutoff;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Checks the constraints declared on {@link User} and reports them with the same messages as Bean Validation,
+ * without reflection, message interpolation or the email regex. Nothing is allocated for a valid user.
+ */
+@Component
+public class UserValidator {
+
+    static final String NOT_NULL = "must not be null";
+
+    static final String NOT_EMPTY = "must not be empty";
+
+    static final String NOT_PAST = "must be a past date";
+
+    static final String NOT_EMAIL = "must match \"[a-z0-9._%+-]+@[a-z0-9.-]+\\.[a-z]{2,4}$\"";
+
+    private final BirthDateCutoff birthDateCutoff;
+
+    public UserValidator(BirthDateCutoff birthDateCutoff) {
+        this.birthDateCutoff = birthDateCutoff;
+    }
+
+    /**
+     * @return messages of the violated constraints by field name, sorted by field, or an empty map if the user
+     * is valid
+     */
+    public Map<String, String> validate(User user) {
+        String emailError = emailError(user.getEmail());
+        String firstNameError = notEmptyError(user.getFirstName());
+        String lastNameError = notEmptyError(user.getLastName());
+        String birthDateError = birthDateError(user.getBirthDate());
+        if (emailError == null && firstNameError == null && lastNameError == null && birthDateError == null) {
+            return Map.of();
+        }
+
+        Map<String, String> errors = new TreeMap<>();
+        putIfNotNull(errors, "birthDate", birthDateError);
+        putIfNotNull(errors, "email", emailError);
+        putIfNotNull(errors, "firstName", firstNameError);
+        putIfNotNull(errors, "lastName", lastNameError);
+        return errors;
+    }
+
+    /**
+     * Same as matching the whole email against {@code [a-z0-9._%+-]+@[a-z0-9.-]+\.[a-z]{2,4}$}: one {@code @}
+     * after a non-empty local part, and a domain whose last dot has at least one character before it and
+     * two to four lowercase letters after it.
+     */
+    static boolean isEmail(String email) {
+        int at = -1;
+        int lastDot = -1;
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                if (at >= 0) {
+                    return false;
+                }
+                at = i;
+            } else if (at < 0) {
+                if (!isLocalPartChar(c)) {
+                    return false;
+                }
+            } else if (c == '.') {
+                lastDot = i;
+            } else if (!isLowerLetterOrDigit(c) && c != '-') {
+                return false;
+            }
+        }
+
+        int topLevelDomainLength = email.length() - lastDot - 1;
+        if (at < 1 || lastDot < at + 2 || topLevelDomainLength < 2 || topLevelDomainLength > 4) {
+            return false;
+        }
+        for (int i = lastDot + 1; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String emailError(String email) {
+        if (email == null) {
+            return NOT_NULL;
+        }
+        return isEmail(email) ? null : NOT_EMAIL;
+    }
+
+    private static String notEmptyError(String value) {
+        return value == null || value.isEmpty() ? NOT_EMPTY : null;
+    }
+
+    private String birthDateError(LocalDate birthDate) {
+        if (birthDate == null) {
+            return NOT_NULL;
+        }
+        return birthDateCutoff.isInPast(birthDate) ? null : NOT_PAST;
+    }
+
+    private static boolean isLocalPartChar(char c) {
+        return isLowerLetterOrDigit(c) || c == '.' || c == '_' || c == '%' || c == '+' || c == '-';
+    }
+
+    private static boolean isLowerLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+
+    private static void putIfNotNull(Map<String, String> errors, String field, String error) {
+        if (error != null) {
+            errors.put(field, error);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package orlov.oleksandr.programming.userrest.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import orlov.oleksandr.programming.userrest.config.PropertyConfig;
+import orlov.oleksandr.programming.userrest.model.BatchItemResult;
+import orlov.oleksandr.programming.userrest.model.BatchItemStatus;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserPage;
+import orlov.oleksandr.programming.userrest.service.ReactiveUserService;
+import orlov.oleksandr.programming.userrest.service.impl.BirthDateCutoff;
+import orlov.oleksandr.programming.userrest.validation.UserValidator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(ReactiveUserController.class)
+@Import({SimpleMeterRegistry.class, PropertyConfig.class, BirthDateCutoff.class, UserValidator.class})
+class ReactiveUserControllerTest {
+
+    private static final String EMAIL = "email@email.com";
+    private static final String FIRST_NAME = "FIRSTNAME";
+    private static final String LAST_NAME = "LASTNAME";
+    private static final LocalDate VALID_DATE = LocalDate.of(2000, 1, 1);
+    private String classPath = "/api/users";
+
+    @MockBean
+    private ReactiveUserService userService;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void create_InvalidUser_ShouldReturnBadRequest() {
+        webTestClient.post().uri(classPath)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new User())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").exists()
+                .jsonPath("$.errors.email").isEqualTo("must not be null");
+    }
+
+    @Test
+    void create_ValidUser_ShouldReturnUser() {
+        User user = createUser(EMAIL);
+        when(userService.create(any())).thenReturn(Mono.just(user));
+
+        webTestClient.post().uri(classPath)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(user)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.email").isEqualTo(EMAIL)
+                .jsonPath("$.birthDate").isEqualTo(VALID_DATE.toString());
+    }
+
+    @Test
+    void create_ExistingUser_ShouldReturnBadRequest() {
+        User user = createUser(EMAIL);
+        when(userService.create(any()))
+                .thenReturn(Mono.error(new IllegalArgumentException("User already exists with email: " + EMAIL)));
+
+        webTestClient.post().uri(classPath)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(user)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors").isEqualTo("User already exists with email: " + EMAIL);
+    }
+
+    @Test
+    void delete_ValidUser_ShouldReturnNoContent() {
+        User user = createUser(EMAIL);
+        when(userService.delete(any())).thenReturn(Mono.empty());
+
+        webTestClient.method(HttpMethod.DELETE).uri(classPath)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(user)
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    void getUsersInDateRange_ShouldStreamJsonArray() {
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.of(2000, 12, 31);
+        when(userService.getUsersWithBirthDateInBetween(from, to))
+                .thenReturn(Flux.just(createUser("a@email.com"), createUser("b@email.com")));
+
+        webTestClient.get().uri(classPath + "?startDate=" + from + "&endDate=" + to)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[1].email").isEqualTo("b@email.com");
+    }
+
+    @Test
+    void getUsersInDateRange_WithNdjsonAccept_ShouldStreamLines() {
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.of(2000, 12, 31);
+        when(userService.getUsersWithBirthDateInBetween(from, to))
+                .thenReturn(Flux.just(createUser("a@email.com"), createUser("b@email.com")));
+
+        Flux<User> users = webTestClient.get().uri(classPath + "?startDate=" + from + "&endDate=" + to)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .returnResult(User.class)
+                .getResponseBody();
+
+        StepVerifier.create(users.map(User::getEmail))
+                .expectNext("a@email.com", "b@email.com")
+                .verifyComplete();
+    }
+
+    @Test
+    void getUsersInDateRange_InvalidDate_ShouldReturnBadRequest() {
+        webTestClient.get().uri(classPath + "?startDate=2000-13-01&endDate=2000-12-31")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Bad request");
+    }
+
+    @Test
+    void getUsersInDateRangePage_ShouldReturnPage() {
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.of(2000, 12, 31);
+        when(userService.getUsersWithBirthDateInBetween(from, to, null, 1))
+                .thenReturn(Mono.just(new UserPage(List.of(createUser(EMAIL)), "next")));
+
+        webTestClient.get().uri(classPath + "?startDate=" + from + "&endDate=" + to + "&limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.users[0].email").isEqualTo(EMAIL)
+                .jsonPath("$.nextCursor").isEqualTo("next");
+    }
+
+    @Test
+    void createUsers_ShouldReportInvalidItemsInRequestOrder() {
+        User valid = createUser(EMAIL);
+        when(userService.createAll(any()))
+                .thenReturn(Mono.just(List.of(BatchItemResult.of(valid, BatchItemStatus.CREATED))));
+
+        webTestClient.post().uri(classPath + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(new User(), valid))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo("INVALID")
+                .jsonPath("$[1].status").isEqualTo("CREATED")
+                .jsonPath("$[1].email").isEqualTo(EMAIL);
+    }
+
+    private static User createUser(String email) {
+        return User.builder()
+                .email(email)
+                .firstName(FIRST_NAME)
+                .lastName(LAST_NAME)
+                .birthDate(VALID_DATE)
+                .build();
+    }
+}
@@ -1,25 +1,46 @@
 package orlov.oleksandr.programming.userrest.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import orlov.oleksandr.programming.userrest.config.PropertyConfig;
+import orlov.oleksandr.programming.userrest.exception.VersionConflictException;
+import orlov.oleksandr.programming.userrest.model.BatchItemResult;
+import orlov.oleksandr.programming.userrest.model.BatchItemStatus;
 import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserPage;
+import orlov.oleksandr.programming.userrest.model.UserRange;
+import orlov.oleksandr.programming.userrest.model.UserStats;
 import orlov.oleksandr.programming.userrest.service.UserService;
+import orlov.oleksandr.programming.userrest.service.impl.BirthDateCutoff;
+import orlov.oleksandr.programming.userrest.validation.UserValidator;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(UserController.class)
+@Import({SimpleMeterRegistry.class, PropertyConfig.class, BirthDateCutoff.class, UserValidator.class})
 class UserControllerTest {
 
     private static final String EMAIL = "email@email.com";
@@ -163,6 +184,104 @@ class UserControllerTest {
     }
 
 
+    @Test
+    void update_WithIfMatch_ShouldReturnETag() throws Exception {
+        User user = User.builder().email(EMAIL).firstName(FIRST_NAME).lastName(LAST_NAME).birthDate(VALID_DATE).build();
+        User updated = user.toBuilder().version(4L).build();
+
+        when(userService.update(argThat(request -> Long.valueOf(3).equals(request.getVersion())))).thenReturn(updated);
+
+        mockMvc.perform(put(classPath)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @Test
+    void update_WithStaleIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        User user = User.builder().email(EMAIL).firstName(FIRST_NAME).lastName(LAST_NAME).birthDate(VALID_DATE).build();
+
+        when(userService.update(any())).thenThrow(new VersionConflictException(EMAIL, 3, 4));
+
+        mockMvc.perform(put(classPath)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("Precondition failed"));
+    }
+
+    @Test
+    void partialUpdate_WithStaleBodyVersion_ShouldReturnConflict() throws Exception {
+        User patch = User.builder().email(EMAIL).firstName(FIRST_NAME).version(3L).build();
+
+        when(userService.partialUpdate(any())).thenThrow(new VersionConflictException(EMAIL, 3, 4));
+
+        mockMvc.perform(patch(classPath)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patch)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @Test
+    void update_WithInvalidIfMatch_ShouldReturnBadRequest() throws Exception {
+        User user = User.builder().email(EMAIL).firstName(FIRST_NAME).lastName(LAST_NAME).birthDate(VALID_DATE).build();
+
+        mockMvc.perform(put(classPath)
+                        .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getUser_ShouldReturnETag() throws Exception {
+        User user = User.builder().email(EMAIL).firstName(FIRST_NAME).lastName(LAST_NAME).birthDate(VALID_DATE)
+                .version(2L).build();
+
+        when(userService.getUserByEmail(EMAIL)).thenReturn(user);
+
+        mockMvc.perform(get(classPath + "/" + EMAIL))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(jsonPath("$.email").value(EMAIL));
+    }
+
+    @Test
+    void getStats_ShouldReturnCountsAndHistograms() throws Exception {
+        when(userService.getStats()).thenReturn(new UserStats(3, 2, 1, 18));
+        when(userService.getBirthYearHistogram()).thenReturn(Map.of(2000, 3L));
+        when(userService.getBirthMonthHistogram()).thenReturn(Map.of(YearMonth.of(2000, 1), 3L));
+
+        mockMvc.perform(get(classPath + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(3))
+                .andExpect(jsonPath("$.eligible").value(2))
+                .andExpect(jsonPath("$.ineligible").value(1))
+                .andExpect(jsonPath("$.minimalAge").value(18));
+        mockMvc.perform(get(classPath + "/stats/birth-years"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.2000").value(3));
+        mockMvc.perform(get(classPath + "/stats/birth-months"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"2000-01\": 3}"));
+    }
+
+    @Test
+    void searchUsers_ShouldPassCriteriaAndDefaultLimit() throws Exception {
+        User user = User.builder().email(EMAIL).firstName(FIRST_NAME).lastName(LAST_NAME).birthDate(VALID_DATE).build();
+
+        when(userService.searchUsers("LAST", null, null, 20)).thenReturn(List.of(user));
+
+        mockMvc.perform(get(classPath + "/search").param("lastName", "LAST"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email").value(EMAIL));
+    }
+
     @Test
     void delete_InvalidUser_ShouldReturnBadRequest() throws Exception {
         User user = new User();
@@ -225,7 +344,7 @@ class UserControllerTest {
         userList.add(user1);
         userList.add(user2);
 
-        when(userService.getUsersWithBirthDateInBetween(any(LocalDate.class), any(LocalDate.class))).thenReturn(userList);
+        when(userService.getUserRange(any(LocalDate.class), any(LocalDate.class))).thenReturn(new UserRange(userList, 42));
 
         mockMvc.perform(get(classPath)
                         .param("startDate", START_DATE.toString())
@@ -237,6 +356,171 @@ class UserControllerTest {
                 .andExpect(jsonPath("$[0].lastName").value("Doe"))
                 .andExpect(jsonPath("$[1].firstName").value("Jane"))
                 .andExpect(jsonPath("$[1].lastName").value("Smith"))
-                .andExpect(jsonPath("$.length()").value(2));
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"r2a\""));
+    }
+
+    @Test
+    void getUsersInDateRange_MatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        when(userService.getUserRange(any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(new UserRange(List.of(User.builder().email(EMAIL).build()), 42));
+
+        mockMvc.perform(get(classPath)
+                        .param("startDate", "2000-01-01")
+                        .param("endDate", "2000-12-31")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"r2a\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"r2a\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getUsersInDateRangePage_ShouldReturnPageOfUsers() throws Exception {
+        User user = User.builder()
+                .email("john@example.com")
+                .firstName("John")
+                .lastName("Doe")
+                .birthDate(LocalDate.of(2000, 5, 10))
+                .build();
+
+        LocalDate START_DATE = LocalDate.of(2000, 1, 1);
+        LocalDate END_DATE = LocalDate.of(2000, 12, 31);
+
+        when(userService.getUsersWithBirthDateInBetween(START_DATE, END_DATE, "cursor", 1))
+                .thenReturn(new UserPage(List.of(user), "nextCursor"));
+
+        mockMvc.perform(get(classPath)
+                        .param("startDate", START_DATE.toString())
+                        .param("endDate", END_DATE.toString())
+                        .param("limit", "1")
+                        .param("cursor", "cursor")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.users[0].firstName").value("John"))
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("nextCursor"));
+    }
+
+    @Test
+    void getUsersInDateRangePage_WithStreamParam_ShouldReturnPage() throws Exception {
+        LocalDate startDate = LocalDate.of(2000, 1, 1);
+        LocalDate endDate = LocalDate.of(2000, 12, 31);
+
+        when(userService.getUsersWithBirthDateInBetween(startDate, endDate, null, 1))
+                .thenReturn(new UserPage(List.of(), null));
+
+        mockMvc.perform(get(classPath)
+                        .param("startDate", startDate.toString())
+                        .param("endDate", endDate.toString())
+                        .param("limit", "1")
+                        .param("stream", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(0));
+    }
+
+    @Test
+    void streamUsersInDateRangeAsNdjson_ShouldWriteOneUserPerLine() throws Exception {
+        User user1 = User.builder()
+                .email("john@example.com")
+                .firstName("John")
+                .lastName("Doe")
+                .birthDate(LocalDate.of(2000, 5, 10))
+                .build();
+        User user2 = User.builder()
+                .email("jane@example.com")
+                .firstName("Jane")
+                .lastName("Smith")
+                .birthDate(LocalDate.of(2000, 7, 15))
+                .build();
+
+        LocalDate START_DATE = LocalDate.of(2000, 1, 1);
+        LocalDate END_DATE = LocalDate.of(2000, 12, 31);
+
+        when(userService.streamUsersWithBirthDateInBetween(START_DATE, END_DATE)).thenReturn(Stream.of(user1, user2));
+
+        MvcResult result = mockMvc.perform(get(classPath)
+                        .param("startDate", START_DATE.toString())
+                        .param("endDate", END_DATE.toString())
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(2, lines.length);
+        assertEquals(user1, objectMapper.readValue(lines[0], User.class));
+        assertEquals(user2, objectMapper.readValue(lines[1], User.class));
+    }
+
+    @Test
+    void streamUsersInDateRangeAsJsonArray_ShouldReturnListOfUsers() throws Exception {
+        User user = User.builder()
+                .email("john@example.com")
+                .firstName("John")
+                .lastName("Doe")
+                .birthDate(LocalDate.of(2000, 5, 10))
+                .build();
+
+        LocalDate START_DATE = LocalDate.of(2000, 1, 1);
+        LocalDate END_DATE = LocalDate.of(2000, 12, 31);
+
+        when(userService.streamUsersWithBirthDateInBetween(START_DATE, END_DATE)).thenReturn(Stream.of(user));
+
+        MvcResult result = mockMvc.perform(get(classPath)
+                        .param("startDate", START_DATE.toString())
+                        .param("endDate", END_DATE.toString())
+                        .param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].firstName").value("John"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void createUsers_ShouldReturnPerItemResultsInRequestOrder() throws Exception {
+        User validUser = User.builder()
+                .email(EMAIL)
+                .firstName(FIRST_NAME)
+                .lastName(LAST_NAME)
+                .birthDate(VALID_DATE)
+                .build();
+        User invalidUser = User.builder()
+                .firstName(FIRST_NAME)
+                .lastName(LAST_NAME)
+                .birthDate(VALID_DATE)
+                .build();
+
+        when(userService.createAll(List.of(validUser)))
+                .thenReturn(List.of(BatchItemResult.of(validUser, BatchItemStatus.CREATED)));
+
+        mockMvc.perform(post(classPath + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(invalidUser, validUser))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].status").value("INVALID"))
+                .andExpect(jsonPath("$[0].message").value("{email=must not be null}"))
+                .andExpect(jsonPath("$[1].email").value(EMAIL))
+                .andExpect(jsonPath("$[1].status").value("CREATED"));
+    }
+
+    @Test
+    void createUsers_WithOversizedBatch_ShouldReturnBadRequestWithoutCallingService() throws Exception {
+        List<User> users = Collections.nCopies(UserService.MAX_BATCH_SIZE + 1, new User());
+
+        mockMvc.perform(post(classPath + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(users)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userService);
     }
-}
\ No newline at end of file
+}
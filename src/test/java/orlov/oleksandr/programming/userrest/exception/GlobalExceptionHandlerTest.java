@@ -1,8 +1,9 @@
 package orlov.oleksandr.programming.userrest.exception;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
@@ -11,6 +12,7 @@ import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.server.ServerWebInputException;
 
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
@@ -27,9 +29,16 @@ class GlobalExceptionHandlerTest {
     @Mock
     private MethodArgumentNotValidException mockException;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
+
     private GlobalExceptionHandler globalExceptionHandler;
 
+    @BeforeEach
+    void beforeEach() {
+        meterRegistry = new SimpleMeterRegistry();
+        globalExceptionHandler = new GlobalExceptionHandler(meterRegistry);
+    }
+
     @Test
     public void testHandleValidationException() {
         Map<String, String> errors = Map.of("Validation error", "Error details");
@@ -51,6 +60,18 @@ class GlobalExceptionHandlerTest {
         assertEquals("Bad request", responseEntity.getBody().get("errors"));
     }
 
+    @Test
+    public void testHandleUserNotFoundException() {
+        UserNotFoundException exception = new UserNotFoundException();
+        ResponseEntity<Map<String, Object>> responseEntity = globalExceptionHandler.handleUserNotFoundException(exception);
+
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertEquals("Bad request", responseEntity.getBody().get("message"));
+        assertEquals("User not found", responseEntity.getBody().get("errors"));
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals(1, meterRegistry.get("users.errors").tag("type", "user_not_found").counter().count());
+    }
+
     @Test
     public void testHandleDateTimeParseException() {
         DateTimeParseException exception = new DateTimeParseException("Invalid date", "2022-04-30", 0);
@@ -101,4 +122,37 @@ class GlobalExceptionHandlerTest {
         assertEquals("Internal server error", responseEntity.getBody().get("message"));
         assertEquals("Internal server error", responseEntity.getBody().get("error"));
     }
+
+    @Test
+    public void testHandleInternalServerErrorWithoutMessage() {
+        ResponseEntity<Map<String, Object>> responseEntity =
+                globalExceptionHandler.handleInternalServerError(new NullPointerException());
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, responseEntity.getStatusCode());
+        assertEquals("Internal server error", responseEntity.getBody().get("message"));
+        assertTrue(responseEntity.getBody().containsKey("error"));
+        assertNull(responseEntity.getBody().get("error"));
+    }
+
+    @Test
+    public void testHandleServerWebInputException() {
+        ServerWebInputException exception = new ServerWebInputException("Type mismatch.");
+        ResponseEntity<Map<String, Object>> responseEntity =
+                globalExceptionHandler.handleServerWebInputException(exception);
+
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertEquals("Bad request", responseEntity.getBody().get("message"));
+        assertEquals("Type mismatch.", responseEntity.getBody().get("error"));
+    }
+
+    @Test
+    public void testErrorsAreCountedByType() {
+        globalExceptionHandler.handleIllegalArgumentException(new IllegalArgumentException("Bad request"));
+        globalExceptionHandler.handleIllegalArgumentException(new IllegalArgumentException("Bad request"));
+        globalExceptionHandler.handleInternalServerError(new Exception("Internal server error"));
+
+        assertEquals(2, meterRegistry.get("users.errors").tag("type", "illegal_argument").counter().count());
+        assertEquals(1, meterRegistry.get("users.errors").tag("type", "internal_server_error").counter().count());
+        assertEquals(0, meterRegistry.get("users.errors").tag("type", "validation").counter().count());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package orlov.oleksandr.programming.userrest.exception;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRateLimiterTest {
+
+    @Test
+    void tryAcquire_LimitsPerSecondAndReportsSkipped() {
+        AtomicLong nanoTime = new AtomicLong();
+        LogRateLimiter limiter = new LogRateLimiter(2, nanoTime::get);
+
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(-1, limiter.tryAcquire());
+        assertEquals(-1, limiter.tryAcquire());
+
+        nanoTime.set(1_000_000_000L);
+
+        assertEquals(2, limiter.tryAcquire());
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(-1, limiter.tryAcquire());
+    }
+}
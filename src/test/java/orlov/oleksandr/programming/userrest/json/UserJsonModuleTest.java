@@ -0,0 +1,75 @@
+package orlov.oleksandr.programming.userrest.json;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import orlov.oleksandr.programming.userrest.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserJsonModuleTest {
+
+    private final ObjectMapper beanMapper = mapper();
+
+    private final ObjectMapper moduleMapper = mapper().registerModule(new UserJsonModule());
+
+    @Test
+    void serialize_SameAsBeanSerialization() throws Exception {
+        List<User> users = List.of(
+                new User(),
+                new User("test@email.com", "FIRSTNAME", "LASTNAME", LocalDate.of(2000, 2, 29), "Street \"1\"",
+                        "+380", 7L),
+                User.builder().email("old@email.com").birthDate(LocalDate.of(1850, 12, 31)).build(),
+                User.builder().email("future@email.com").birthDate(LocalDate.of(12345, 1, 1)).build());
+
+        assertEquals(beanMapper.writeValueAsString(users), moduleMapper.writeValueAsString(users));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"email\":\"test@email.com\",\"firstName\":\"FIRSTNAME\",\"lastName\":\"LASTNAME\","
+                    + "\"birthDate\":\"2000-01-31\",\"address\":null,\"phoneNumber\":\"1\",\"version\":3}",
+            "{\"unknown\":{\"nested\":[1,2]},\"email\":\"test@email.com\",\"birthDate\":[2000,1,31]}",
+            "{\"firstName\":12,\"version\":\"5\",\"birthDate\":null}",
+            "{}"})
+    void deserialize_SameAsBeanDeserialization(String json) throws Exception {
+        User expected = beanMapper.readValue(json, User.class);
+        User actual = moduleMapper.readValue(json, User.class);
+
+        assertEquals(expected, actual);
+        assertEquals(expected.getVersion(), actual.getVersion());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2000-02-30", "2000-1-31", "31.01.2000"})
+    void deserialize_InvalidDate_FailsLikeBeanDeserialization(String date) {
+        String json = "{\"birthDate\":\"" + date + "\"}";
+
+        assertThrows(InvalidFormatException.class, () -> beanMapper.readValue(json, User.class));
+        assertThrows(InvalidFormatException.class, () -> moduleMapper.readValue(json, User.class));
+    }
+
+    @Test
+    void deserialize_List() throws Exception {
+        String json = "[{\"email\":\"a@email.com\"},{\"email\":\"b@email.com\"}]";
+
+        assertEquals(beanMapper.readValue(json, new TypeReference<List<User>>() {}),
+                moduleMapper.readValue(json, new TypeReference<List<User>>() {}));
+    }
+
+    private static ObjectMapper mapper() {
+        return new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+}
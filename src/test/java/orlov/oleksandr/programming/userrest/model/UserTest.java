@@ -224,7 +224,7 @@ class UserTest {
     @Test
     void toStringTest() {
         String expected = "User{email='valid@cv.edu.ua', firstName='Valid-Name', lastName='Valid-Name'," +
-                " birthDate=-999999999-01-01, address='Valid-Address', phoneNumber='Valid-Phone'}";
+                " birthDate=-999999999-01-01, address='Valid-Address', phoneNumber='Valid-Phone', version=null}";
 
         assertEquals(expected, validUser.toString());
     }
@@ -240,7 +240,7 @@ class UserTest {
                 .phoneNumber(validUser.getPhoneNumber());
 
         String expected = "User.UserBuilder(email=valid@cv.edu.ua, firstName=Valid-Name, lastName=Valid-Name," +
-                " birthDate=-999999999-01-01, address=Valid-Address, phoneNumber=Valid-Phone)";
+                " birthDate=-999999999-01-01, address=Valid-Address, phoneNumber=Valid-Phone, version=null)";
 
         assertEquals(expected, userBuilder.toString());
     }
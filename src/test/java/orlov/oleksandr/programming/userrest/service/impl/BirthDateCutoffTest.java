@@ -0,0 +1,64 @@
+package orlov.oleksandr.programming.userrest.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BirthDateCutoffTest {
+
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+
+    @Test
+    void isOldEnough_ComparesExactDate() {
+        BirthDateCutoff cutoff = new BirthDateCutoff(18, clockAt("2024-06-15T10:00:00Z"));
+
+        assertTrue(cutoff.isOldEnough(LocalDate.of(2006, 6, 15)));
+        assertFalse(cutoff.isOldEnough(LocalDate.of(2006, 6, 16)));
+        assertFalse(cutoff.isOldEnough(LocalDate.of(2006, 12, 31)));
+    }
+
+    @Test
+    void isOldEnough_NextDay_RefreshesCutoff() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-06-15T23:59:59Z"));
+        BirthDateCutoff cutoff = new BirthDateCutoff(18, clock);
+        assertFalse(cutoff.isOldEnough(LocalDate.of(2006, 6, 16)));
+
+        clock.instant = Instant.parse("2024-06-16T00:00:00Z");
+
+        assertTrue(cutoff.isOldEnough(LocalDate.of(2006, 6, 16)));
+    }
+
+    private static Clock clockAt(String instant) {
+        return Clock.fixed(Instant.parse(instant), ZONE);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package orlov.oleksandr.programming.userrest.service.impl;
+
+import org.junit.jupiter.api.Test;
+import orlov.oleksandr.programming.userrest.model.User;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatchApplierTest {
+
+    private static final PatchApplier<User> PATCH_APPLIER = PatchApplier.forClass(User.class);
+
+    @Test
+    void merge_CopiesOnlyNonNullPatchFields() {
+        User base = User.builder()
+                .email("email@email.com")
+                .firstName("FIRSTNAME")
+                .lastName("LASTNAME")
+                .birthDate(LocalDate.of(2000, 1, 1))
+                .address("ADDRESS")
+                .build();
+
+        User patch = new User();
+        patch.setFirstName("UPDATED");
+        patch.setPhoneNumber("PHONE");
+
+        User merged = PATCH_APPLIER.merge(base, patch);
+
+        User expected = User.builder()
+                .email("email@email.com")
+                .firstName("UPDATED")
+                .lastName("LASTNAME")
+                .birthDate(LocalDate.of(2000, 1, 1))
+                .address("ADDRESS")
+                .phoneNumber("PHONE")
+                .build();
+        assertEquals(expected, merged);
+    }
+
+    @Test
+    void merge_DoesNotModifyArguments() {
+        User base = User.builder().email("email@email.com").firstName("FIRSTNAME").build();
+        User patch = User.builder().firstName("UPDATED").build();
+
+        User merged = PATCH_APPLIER.merge(base, patch);
+
+        assertNotSame(base, merged);
+        assertEquals("FIRSTNAME", base.getFirstName());
+        assertNull(patch.getEmail());
+    }
+
+    @Test
+    void forClass_PrimitiveProperty() {
+        var e = assertThrows(IllegalStateException.class, () -> PatchApplier.forClass(WithPrimitive.class));
+
+        assertEquals("Can't build patch applier for " + WithPrimitive.class.getName(), e.getMessage());
+    }
+
+    public static class WithPrimitive {
+        private int value;
+
+        public int getValue() {
+            return value;
+        }
+
+        public void setValue(int value) {
+            this.value = value;
+        }
+    }
+}
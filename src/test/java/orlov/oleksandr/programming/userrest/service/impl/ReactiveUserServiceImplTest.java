@@ -0,0 +1,101 @@
+package orlov.oleksandr.programming.userrest.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.store.RangeScanner;
+import orlov.oleksandr.programming.userrest.store.impl.InMemoryUserStore;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReactiveUserServiceImplTest {
+
+    private ReactiveUserServiceImpl reactiveUserService;
+
+    @BeforeEach
+    void setUp() {
+        reactiveUserService = new ReactiveUserServiceImpl(new UserServiceImpl(
+                new BirthDateCutoff(18, Clock.systemDefaultZone()), new InMemoryUserStore(),
+                RangeScanner.sequential()),
+                Schedulers.immediate());
+    }
+
+    @Test
+    void create_ExistingUser_ShouldSignalError() {
+        StepVerifier.create(reactiveUserService.create(user("a@email.com", LocalDate.of(2000, 1, 1))))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(reactiveUserService.create(user("a@email.com", LocalDate.of(2000, 1, 1))))
+                .verifyErrorMessage("User already exists with email: a@email.com");
+    }
+
+    @Test
+    void getUsersWithBirthDateInBetween_ShouldEmitOnlyRequestedUsers() {
+        Flux.range(1, 10)
+                .flatMap(i -> reactiveUserService.create(user(i + "@email.com", LocalDate.of(2000, 1, i))))
+                .blockLast();
+
+        StepVerifier.create(reactiveUserService.getUsersWithBirthDateInBetween(
+                        LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 31)).map(User::getEmail), 2)
+                .expectNext("1@email.com", "2@email.com")
+                .thenRequest(1)
+                .expectNext("3@email.com")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void everyCall_ShouldRunOnStoreScheduler() {
+        Scheduler storeScheduler = Schedulers.newSingle("store-test");
+        try {
+            reactiveUserService = new ReactiveUserServiceImpl(new UserServiceImpl(
+                    new BirthDateCutoff(18, Clock.systemDefaultZone()), new InMemoryUserStore(),
+                    RangeScanner.sequential()),
+                    storeScheduler);
+
+            assertOnStoreScheduler(reactiveUserService.create(user("a@email.com", LocalDate.of(2000, 1, 1))));
+            assertOnStoreScheduler(reactiveUserService.getUserByEmail("a@email.com"));
+            assertOnStoreScheduler(reactiveUserService.getStats());
+            assertOnStoreScheduler(reactiveUserService.getBirthYearHistogram());
+            assertOnStoreScheduler(reactiveUserService.getBirthMonthHistogram());
+            assertOnStoreScheduler(reactiveUserService.searchUsers("Last", null, null, 10));
+            assertOnStoreScheduler(reactiveUserService.getUsersWithBirthDateInBetween(
+                    LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 31), null, 10));
+            assertOnStoreScheduler(reactiveUserService.getUsersWithBirthDateInBetween(
+                    LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 31)));
+        } finally {
+            storeScheduler.dispose();
+        }
+    }
+
+    @Test
+    void getUsersWithBirthDateInBetween_InvalidRange_ShouldSignalErrorOnSubscribe() {
+        StepVerifier.create(reactiveUserService.getUsersWithBirthDateInBetween(
+                        LocalDate.of(2000, 2, 1), LocalDate.of(2000, 1, 1)))
+                .verifyError(IllegalArgumentException.class);
+    }
+
+    private static User user(String email, LocalDate birthDate) {
+        return User.builder()
+                .email(email)
+                .firstName("First")
+                .lastName("Last")
+                .birthDate(birthDate)
+                .build();
+    }
+
+    private static void assertOnStoreScheduler(Publisher<?> publisher) {
+        StepVerifier.create(Flux.from(publisher).map(value -> Thread.currentThread().getName()))
+                .assertNext(thread -> assertTrue(thread.startsWith("store-test")))
+                .verifyComplete();
+    }
+}
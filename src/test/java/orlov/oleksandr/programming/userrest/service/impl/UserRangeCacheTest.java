@@ -0,0 +1,95 @@
+package orlov.oleksandr.programming.userrest.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserRange;
+import orlov.oleksandr.programming.userrest.store.RangeScanner;
+import orlov.oleksandr.programming.userrest.store.impl.InMemoryUserStore;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserRangeCacheTest {
+
+    private static final LocalDate DATE = LocalDate.of(2000, 1, 1);
+
+    private InMemoryUserStore userStore;
+
+    private UserRangeCache rangeCache;
+
+    @BeforeEach
+    void setUp() {
+        userStore = new InMemoryUserStore();
+        rangeCache = new UserRangeCache(userStore, RangeScanner.sequential(), 2, 100);
+    }
+
+    @Test
+    void get_RangeWithinBound_IsCached() {
+        userStore.insertIfAbsent(buildUser("first@email.com", DATE));
+        userStore.insertIfAbsent(buildUser("second@email.com", DATE.plusDays(1)));
+
+        UserRange range = rangeCache.get(DATE, DATE.plusDays(1));
+
+        assertEquals(2, range.getUsers().size());
+        assertSame(range, rangeCache.get(DATE, DATE.plusDays(1)));
+    }
+
+    @Test
+    void get_RangeLargerThanBound_IsNotCached() {
+        userStore.insertIfAbsent(buildUser("first@email.com", DATE));
+        userStore.insertIfAbsent(buildUser("second@email.com", DATE.plusDays(1)));
+        userStore.insertIfAbsent(buildUser("third@email.com", DATE.plusDays(2)));
+
+        UserRange range = rangeCache.get(DATE, DATE.plusDays(2));
+
+        assertEquals(3, range.getUsers().size());
+        assertNotSame(range, rangeCache.get(DATE, DATE.plusDays(2)));
+    }
+
+    @Test
+    void write_DropsOnlyRangesContainingBirthDate() {
+        UserRange narrow = rangeCache.get(DATE, DATE.plusDays(1));
+        UserRange other = rangeCache.get(DATE.plusDays(10), DATE.plusDays(20));
+        UserRange wide = rangeCache.get(DATE.minusYears(100), DATE.plusYears(100));
+
+        userStore.insertIfAbsent(buildUser("first@email.com", DATE.plusDays(15)));
+
+        assertSame(narrow, rangeCache.get(DATE, DATE.plusDays(1)));
+        assertNotSame(other, rangeCache.get(DATE.plusDays(10), DATE.plusDays(20)));
+        assertNotSame(wide, rangeCache.get(DATE.minusYears(100), DATE.plusYears(100)));
+    }
+
+    @Test
+    void write_DropsRangesContainingOldBirthDate() {
+        userStore.insertIfAbsent(buildUser("first@email.com", DATE));
+        UserRange range = rangeCache.get(DATE, DATE);
+
+        userStore.replace(buildUser("first@email.com", DATE.plusDays(5)));
+
+        assertNotSame(range, rangeCache.get(DATE, DATE));
+        assertTrue(rangeCache.get(DATE, DATE).getUsers().isEmpty());
+    }
+
+    @Test
+    void get_MoreRangesThanBound_EvictsRanges() {
+        rangeCache = new UserRangeCache(userStore, RangeScanner.sequential(), 100, 2);
+
+        for (int i = 0; i < 10; i++) {
+            rangeCache.get(DATE.plusDays(i), DATE.plusDays(i));
+        }
+
+        assertEquals(2, rangeCache.size());
+    }
+
+    private static User buildUser(String email, LocalDate birthDate) {
+        return User.builder()
+                .email(email)
+                .firstName("FIRSTNAME")
+                .lastName("LASTNAME")
+                .birthDate(birthDate)
+                .version(1L)
+                .build();
+    }
+}
@@ -9,10 +9,28 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Component;
 import org.springframework.test.context.TestPropertySource;
+import orlov.oleksandr.programming.userrest.exception.UserRequestException;
+import orlov.oleksandr.programming.userrest.exception.VersionConflictException;
+import orlov.oleksandr.programming.userrest.model.BatchItemResult;
+import orlov.oleksandr.programming.userrest.model.BatchItemStatus;
 import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserPage;
+import orlov.oleksandr.programming.userrest.model.UserRange;
+import orlov.oleksandr.programming.userrest.model.UserStats;
+import orlov.oleksandr.programming.userrest.store.RangeScanner;
+import orlov.oleksandr.programming.userrest.store.impl.InMemoryUserStore;
 
-import java.lang.reflect.Field;
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.jayway.jsonpath.internal.path.PathCompiler.fail;
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,9 +48,13 @@ class UserServiceImplTest {
     @Autowired
     private int minimalAge;
 
+    @Value("${user.search.enabled}")
+    private boolean searchEnabled;
+
     @BeforeEach
     void beforeEach() {
-        userService = new UserServiceImpl(minimalAge);
+        userService = new UserServiceImpl(new BirthDateCutoff(minimalAge, Clock.systemDefaultZone()),
+                new InMemoryUserStore(), RangeScanner.sequential());
     }
 
     @Test
@@ -181,7 +203,7 @@ class UserServiceImplTest {
     }
 
     @Test
-    void partialUpdate_BirthDateNull() throws IllegalAccessException {
+    void partialUpdate_BirthDateNull() {
         User user = new User();
         user.setEmail(EMAIL);
         user.setFirstName(FIRST_NAME);
@@ -223,7 +245,7 @@ class UserServiceImplTest {
     }
 
     @Test
-    void partialUpdate_Valid() throws IllegalAccessException {
+    void partialUpdate_Valid() {
         User user = new User();
         user.setEmail(EMAIL);
         user.setFirstName(FIRST_NAME);
@@ -241,6 +263,28 @@ class UserServiceImplTest {
         assertEquals(updatedDate, userService.getUserByEmail(EMAIL).getBirthDate());
     }
 
+    @Test
+    void partialUpdate_BirthDateMovesUserInRange() {
+        User user = User.builder()
+                .email(EMAIL)
+                .firstName(FIRST_NAME)
+                .lastName(LAST_NAME)
+                .birthDate(VALID_DATE)
+                .build();
+
+        LocalDate updatedDate = VALID_DATE.minusYears(1);
+        User updateUser = new User();
+        updateUser.setEmail(EMAIL);
+        updateUser.setBirthDate(updatedDate);
+
+        userService.create(user);
+        userService.partialUpdate(updateUser);
+
+        assertEquals(0, userService.getUsersWithBirthDateInBetween(VALID_DATE, VALID_DATE).size());
+        assertEquals(FIRST_NAME, userService.getUsersWithBirthDateInBetween(updatedDate, updatedDate)
+                .get(0).getFirstName());
+    }
+
     @Test
     void delete_Valid(){
         User user = new User();
@@ -292,4 +336,390 @@ class UserServiceImplTest {
         assertEquals(0, userService.getUsersWithBirthDateInBetween(to.plusDays(100),
                 to.plusDays(100)).size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getUsersWithBirthDateInBetween_PagesThroughRange(){
+        LocalDate to = VALID_DATE.plusDays(10);
+
+        for(int i = 0; i < 10; i++){
+            User user = User.builder()
+                    .email(EMAIL + i)
+                    .firstName(String.valueOf(i))
+                    .lastName(String.valueOf(i))
+                    .birthDate(VALID_DATE.plusDays(i))
+                    .build();
+
+            userService.create(user);
+        }
+
+        UserPage firstPage = userService.getUsersWithBirthDateInBetween(VALID_DATE, to, null, 4);
+        UserPage secondPage = userService.getUsersWithBirthDateInBetween(VALID_DATE, to, firstPage.getNextCursor(), 4);
+        UserPage lastPage = userService.getUsersWithBirthDateInBetween(VALID_DATE, to, secondPage.getNextCursor(), 4);
+
+        assertEquals("0", firstPage.getUsers().get(0).getFirstName());
+        assertEquals("4", secondPage.getUsers().get(0).getFirstName());
+        assertEquals(2, lastPage.getUsers().size());
+        assertEquals("9", lastPage.getUsers().get(1).getFirstName());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    @Test
+    void getUsersWithBirthDateInBetween_InvalidLimit(){
+        String expected = "Limit must be between 1 and 1000: 0";
+
+        var e = assertThrows(IllegalArgumentException.class,
+                () -> userService.getUsersWithBirthDateInBetween(VALID_DATE, VALID_DATE, null, 0));
+
+        assertEquals(expected, e.getMessage());
+    }
+
+    @Test
+    void getUsersWithBirthDateInBetween_InvalidCursor(){
+        String expected = "Invalid cursor: %%%";
+
+        var e = assertThrows(IllegalArgumentException.class,
+                () -> userService.getUsersWithBirthDateInBetween(VALID_DATE, VALID_DATE, "%%%", 10));
+
+        assertEquals(expected, e.getMessage());
+    }
+
+    @Test
+    void createAll_ReturnsPerItemStatus(){
+        User valid = User.builder()
+                .email(EMAIL)
+                .firstName(FIRST_NAME)
+                .lastName(LAST_NAME)
+                .birthDate(VALID_DATE)
+                .build();
+        User duplicate = User.builder()
+                .email(EMAIL)
+                .firstName(FIRST_NAME)
+                .lastName(LAST_NAME)
+                .birthDate(VALID_DATE)
+                .build();
+        User tooYoung = User.builder()
+                .email(EMAIL + 1)
+                .firstName(FIRST_NAME)
+                .lastName(LAST_NAME)
+                .birthDate(LocalDate.now())
+                .build();
+
+        List<BatchItemResult> results = userService.createAll(List.of(valid, duplicate, tooYoung));
+
+        assertEquals(BatchItemStatus.CREATED, results.get(0).getStatus());
+        assertEquals(BatchItemStatus.CONFLICT, results.get(1).getStatus());
+        assertEquals(BatchItemStatus.INVALID, results.get(2).getStatus());
+        assertEquals(valid, userService.getUserByEmail(EMAIL));
+    }
+
+    @Test
+    void updateAll_And_DeleteAll_ReturnPerItemStatus(){
+        User user = User.builder()
+                .email(EMAIL)
+                .firstName(FIRST_NAME)
+                .lastName(LAST_NAME)
+                .birthDate(VALID_DATE)
+                .build();
+        User updated = User.builder()
+                .email(EMAIL)
+                .firstName(FIRST_NAME + "UPDATED")
+                .lastName(LAST_NAME)
+                .birthDate(VALID_DATE)
+                .build();
+        User missing = User.builder()
+                .email(EMAIL + 1)
+                .firstName(FIRST_NAME)
+                .lastName(LAST_NAME)
+                .birthDate(VALID_DATE)
+                .build();
+
+        userService.create(user);
+
+        List<BatchItemResult> updateResults = userService.updateAll(List.of(updated, missing));
+        List<BatchItemResult> deleteResults = userService.deleteAll(List.of(updated, missing));
+
+        assertEquals(BatchItemStatus.UPDATED, updateResults.get(0).getStatus());
+        assertEquals(BatchItemStatus.NOT_FOUND, updateResults.get(1).getStatus());
+        assertEquals(BatchItemStatus.DELETED, deleteResults.get(0).getStatus());
+        assertEquals(BatchItemStatus.NOT_FOUND, deleteResults.get(1).getStatus());
+    }
+
+    @Test
+    void update_IncrementsVersion(){
+        User created = userService.create(buildUser(FIRST_NAME));
+        User updated = userService.update(buildUser(FIRST_NAME + "UPDATED"));
+        User patched = userService.partialUpdate(User.builder().email(EMAIL).lastName("PATCHED").build());
+
+        assertEquals(created.getVersion() + 1, updated.getVersion());
+        assertEquals(created.getVersion() + 2, patched.getVersion());
+        assertEquals(patched.getVersion(), userService.getUserByEmail(EMAIL).getVersion());
+    }
+
+    @Test
+    void create_AfterDelete_DoesNotReuseVersions(){
+        User created = userService.create(buildUser(FIRST_NAME));
+        User updated = userService.update(buildUser(FIRST_NAME + "UPDATED"));
+        userService.delete(updated);
+
+        User recreated = userService.create(buildUser(FIRST_NAME));
+
+        assertTrue(recreated.getVersion() > updated.getVersion());
+        User stale = buildUser(FIRST_NAME + "STALE");
+        stale.setVersion(created.getVersion());
+        assertThrows(VersionConflictException.class, () -> userService.update(stale));
+    }
+
+    @Test
+    void update_StaleVersion_ThrowsVersionConflict(){
+        long version = userService.create(buildUser(FIRST_NAME)).getVersion();
+        userService.update(buildUser(FIRST_NAME + "UPDATED"));
+
+        User stale = buildUser(FIRST_NAME + "STALE");
+        stale.setVersion(version);
+        User stalePatch = User.builder().email(EMAIL).lastName("STALE").version(version).build();
+
+        var e = assertThrows(VersionConflictException.class, () -> userService.update(stale));
+        assertThrows(VersionConflictException.class, () -> userService.partialUpdate(stalePatch));
+
+        assertEquals("Version conflict for user EMAIL: expected " + version + ", actual " + (version + 1),
+                e.getMessage());
+        assertEquals(FIRST_NAME + "UPDATED", userService.getUserByEmail(EMAIL).getFirstName());
+    }
+
+    @Test
+    void partialUpdate_ConcurrentWriters_NoLostUpdates() throws Exception {
+        long version = userService.create(buildUser(FIRST_NAME)).getVersion();
+        int threads = 8;
+        int updatesPerThread = 500;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Object>> tasks = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String lastName = LAST_NAME + i;
+                tasks.add(Executors.callable(() -> {
+                    for (int j = 0; j < updatesPerThread; j++) {
+                        userService.partialUpdate(User.builder().email(EMAIL).lastName(lastName).build());
+                    }
+                }));
+            }
+            for (Future<Object> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(version + threads * updatesPerThread, userService.getUserByEmail(EMAIL).getVersion());
+    }
+
+    @Test
+    void delete_StaleVersion_KeepsUser(){
+        long version = userService.create(buildUser(FIRST_NAME)).getVersion();
+        User stale = buildUser(FIRST_NAME);
+        stale.setVersion(version - 1);
+
+        assertThrows(VersionConflictException.class, () -> userService.delete(stale));
+        List<BatchItemResult> results = userService.deleteAll(List.of(stale));
+
+        assertEquals(BatchItemStatus.CONFLICT, results.get(0).getStatus());
+        assertEquals(version, userService.getUserByEmail(EMAIL).getVersion());
+    }
+
+    @Test
+    void create_DoesNotKeepReferenceToRequestUser(){
+        User user = buildUser(FIRST_NAME);
+        userService.create(user);
+
+        user.setFirstName("MUTATED");
+
+        assertEquals(FIRST_NAME, userService.getUserByEmail(EMAIL).getFirstName());
+    }
+
+    @Test
+    void getUserRange_CachedUntilWriteInRange(){
+        userService.create(buildUser(FIRST_NAME));
+        UserRange range = userService.getUserRange(VALID_DATE, VALID_DATE.plusDays(10));
+        UserRange otherRange = userService.getUserRange(VALID_DATE.plusDays(100), VALID_DATE.plusDays(200));
+
+        assertSame(range, userService.getUserRange(VALID_DATE, VALID_DATE.plusDays(10)));
+
+        userService.partialUpdate(User.builder().email(EMAIL).firstName(FIRST_NAME + "UPDATED").build());
+
+        UserRange updatedRange = userService.getUserRange(VALID_DATE, VALID_DATE.plusDays(10));
+        assertNotSame(range, updatedRange);
+        assertNotEquals(range.getTag(), updatedRange.getTag());
+        assertEquals(FIRST_NAME + "UPDATED", updatedRange.getUsers().get(0).getFirstName());
+        assertSame(otherRange, userService.getUserRange(VALID_DATE.plusDays(100), VALID_DATE.plusDays(200)));
+    }
+
+    @Test
+    void getUserRange_UserRecreated_ChangesTag(){
+        User created = userService.create(buildUser(FIRST_NAME));
+        UserRange range = userService.getUserRange(VALID_DATE, VALID_DATE.plusDays(10));
+
+        userService.delete(created);
+        userService.create(buildUser(FIRST_NAME));
+
+        assertNotEquals(range.getTag(), userService.getUserRange(VALID_DATE, VALID_DATE.plusDays(10)).getTag());
+    }
+
+    @Test
+    void getUserRange_UserMovedIntoRange_InvalidatesBothRanges(){
+        LocalDate laterDate = VALID_DATE.plusDays(150);
+        userService.create(buildUser(FIRST_NAME));
+        UserRange oldRange = userService.getUserRange(VALID_DATE, VALID_DATE.plusDays(10));
+        UserRange newRange = userService.getUserRange(laterDate, laterDate);
+
+        userService.partialUpdate(User.builder().email(EMAIL).birthDate(laterDate).build());
+
+        assertTrue(userService.getUserRange(VALID_DATE, VALID_DATE.plusDays(10)).getUsers().isEmpty());
+        assertEquals(1, userService.getUserRange(laterDate, laterDate).getUsers().size());
+        assertNotEquals(oldRange.getTag(), userService.getUserRange(VALID_DATE, VALID_DATE.plusDays(10)).getTag());
+        assertNotEquals(newRange.getTag(), userService.getUserRange(laterDate, laterDate).getTag());
+    }
+
+    @Test
+    void getStats_FollowWrites() {
+        userService.create(buildUser(FIRST_NAME));
+        userService.createAll(List.of(
+                buildUser(FIRST_NAME).toBuilder().email("second@email.com").birthDate(VALID_DATE.plusMonths(1)).build(),
+                buildUser(FIRST_NAME).toBuilder().email("third@email.com").birthDate(VALID_DATE.minusYears(1)).build()));
+        userService.partialUpdate(User.builder().email(EMAIL).birthDate(VALID_DATE.minusYears(1)).build());
+        userService.delete(userService.getUserByEmail("second@email.com"));
+
+        assertEquals(2, userService.getStats().getCount());
+        assertEquals(Map.of(1999, 2L), userService.getBirthYearHistogram());
+        assertEquals(Map.of(YearMonth.of(1999, 1), 2L), userService.getBirthMonthHistogram());
+    }
+
+    @Test
+    void getStats_CountUsersAlreadyStoredAndIneligible() {
+        InMemoryUserStore userStore = new InMemoryUserStore();
+        userStore.insertIfAbsent(buildUser(FIRST_NAME));
+        userStore.insertIfAbsent(buildUser(FIRST_NAME).toBuilder().email("young@email.com")
+                .birthDate(LocalDate.now().minusYears(minimalAge).plusDays(1)).build());
+        userService = new UserServiceImpl(new BirthDateCutoff(minimalAge, Clock.systemDefaultZone()), userStore,
+                RangeScanner.sequential());
+
+        UserStats stats = userService.getStats();
+
+        assertEquals(2, stats.getCount());
+        assertEquals(1, stats.getEligible());
+        assertEquals(1, stats.getIneligible());
+        assertEquals(minimalAge, stats.getMinimalAge());
+    }
+
+    @Test
+    void getStats_ExtremeBirthDates() {
+        userService.create(buildUser(FIRST_NAME).toBuilder().birthDate(LocalDate.MIN).build());
+        userService.create(buildUser(FIRST_NAME).toBuilder().email("second@email.com").build());
+
+        UserStats stats = userService.getStats();
+
+        assertEquals(2, stats.getCount());
+        assertEquals(2, stats.getEligible());
+        assertEquals(Map.of(LocalDate.MIN.getYear(), 1L, VALID_DATE.getYear(), 1L),
+                userService.getBirthYearHistogram());
+        assertEquals(List.of(YearMonth.from(LocalDate.MIN), YearMonth.from(VALID_DATE)),
+                List.copyOf(userService.getBirthMonthHistogram().keySet()));
+    }
+
+    @Test
+    void searchUsers_Disabled_Rejected() {
+        userService = new UserServiceImpl(new BirthDateCutoff(minimalAge, Clock.systemDefaultZone()),
+                new InMemoryUserStore(), RangeScanner.sequential(), false);
+        userService.create(searchUser("a@email.com", "Smith", null));
+
+        assertThrows(UserRequestException.class, () -> userService.searchUsers("smith", null, null, 20));
+    }
+
+    @Test
+    void searchEnabled_FollowsStoreByDefault() {
+        assertTrue(searchEnabled);
+    }
+
+    @Test
+    void searchUsers_ByLastNamePrefix_IgnoresCaseAndFollowsUpdates() {
+        userService.create(searchUser("b@email.com", "Smithson", null));
+        userService.create(searchUser("a@email.com", "smith", null));
+        userService.create(searchUser("c@email.com", "Smyth", null));
+
+        assertEquals(List.of("a@email.com", "b@email.com"), emails(userService.searchUsers("SMITH", null, null, 20)));
+
+        userService.partialUpdate(User.builder().email("a@email.com").lastName("Jones").build());
+
+        assertEquals(List.of("b@email.com"), emails(userService.searchUsers("smith", null, null, 20)));
+        assertEquals(List.of("a@email.com"), emails(userService.searchUsers("jo", null, null, 20)));
+    }
+
+    @Test
+    void searchUsers_ByEmailPrefix_Limited() {
+        for (int i = 0; i < 5; i++) {
+            userService.create(searchUser("user" + i + "@email.com", LAST_NAME, null));
+        }
+        userService.create(searchUser("other@email.com", LAST_NAME, null));
+
+        assertEquals(List.of("user0@email.com", "user1@email.com"), emails(userService.searchUsers(null, "user", null, 2)));
+
+        userService.delete(userService.getUserByEmail("user0@email.com"));
+
+        assertEquals(List.of("user1@email.com"), emails(userService.searchUsers(null, "user", null, 1)));
+    }
+
+    @Test
+    void searchUsers_ByAddressWords_MatchesAllWords() {
+        userService.create(searchUser("a@email.com", LAST_NAME, "12 Main Street, Kyiv"));
+        userService.create(searchUser("b@email.com", LAST_NAME, "7 Main Street, Lviv"));
+
+        assertEquals(List.of("a@email.com"), emails(userService.searchUsers(null, null, "street kyiv", 20)));
+        assertEquals(2, userService.searchUsers(null, null, "main", 20).size());
+
+        userService.update(searchUser("a@email.com", LAST_NAME, "1 Shevchenka Avenue, Kyiv"));
+
+        assertEquals(List.of("b@email.com"), emails(userService.searchUsers(null, null, "Main", 20)));
+        assertTrue(userService.searchUsers(null, null, "unknown", 20).isEmpty());
+    }
+
+    @Test
+    void searchUsers_NeedsExactlyOneCriterionAndValidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> userService.searchUsers(null, null, null, 20));
+        assertThrows(IllegalArgumentException.class, () -> userService.searchUsers("a", "b", null, 20));
+        assertThrows(IllegalArgumentException.class, () -> userService.searchUsers(" ", null, null, 20));
+        assertThrows(IllegalArgumentException.class, () -> userService.searchUsers("a", null, null, 0));
+    }
+
+    @Test
+    void createAll_BatchTooLarge(){
+        List<User> users = Collections.nCopies(10_001, new User());
+
+        String expected = "Batch size must not be more than 10000: 10001";
+
+        var e = assertThrows(IllegalArgumentException.class, () -> userService.createAll(users));
+
+        assertEquals(expected, e.getMessage());
+    }
+
+    private static User searchUser(String email, String lastName, String address) {
+        return User.builder()
+                .email(email)
+                .firstName(FIRST_NAME)
+                .lastName(lastName)
+                .birthDate(VALID_DATE)
+                .address(address)
+                .build();
+    }
+
+    private static List<String> emails(List<User> users) {
+        return users.stream().map(User::getEmail).toList();
+    }
+
+    private static User buildUser(String firstName) {
+        return User.builder()
+                .email(EMAIL)
+                .firstName(firstName)
+                .lastName(LAST_NAME)
+                .birthDate(VALID_DATE)
+                .build();
+    }
+}
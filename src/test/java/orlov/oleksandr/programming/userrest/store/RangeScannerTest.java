@@ -0,0 +1,97 @@
+package orlov.oleksandr.programming.userrest.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.store.impl.InMemoryUserStore;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeScannerTest {
+
+    private static final LocalDate VALID_DATE = LocalDate.of(2000, 1, 1);
+
+    private ForkJoinPool pool;
+
+    private UserStore userStore;
+
+    private List<User> users;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(3);
+        userStore = new InMemoryUserStore();
+        users = new ArrayList<>();
+        // ten users a day, inserted in (birthDate, email) order
+        for (int i = 0; i < 1000; i++) {
+            User user = User.builder()
+                    .email(String.format("user%04d@email.com", i))
+                    .firstName("FIRST")
+                    .lastName("LAST")
+                    .birthDate(VALID_DATE.plusDays(i / 10))
+                    .build();
+            userStore.insertIfAbsent(user);
+            users.add(user);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void copy_AboveThreshold_KeepsBirthDateOrder() {
+        RangeScanner scanner = new RangeScanner(pool, 15);
+
+        assertEquals(users.subList(20, 1000), scanner.copy(userStore, VALID_DATE.plusDays(2), VALID_DATE.plusDays(200)));
+        assertEquals(users.subList(0, 20), scanner.copy(userStore, VALID_DATE, VALID_DATE.plusDays(1)));
+        assertTrue(pool.getPoolSize() > 0);
+    }
+
+    @Test
+    void copy_AboveThreshold_RangeUpToMaxDate() {
+        User last = User.builder().email("last@email.com").birthDate(LocalDate.MAX).build();
+        userStore.insertIfAbsent(last);
+        RangeScanner scanner = new RangeScanner(pool, 15);
+
+        List<User> expected = new ArrayList<>(users);
+        expected.add(last);
+        assertEquals(expected, scanner.copy(userStore, LocalDate.MIN, LocalDate.MAX));
+    }
+
+    @Test
+    void copy_BelowThreshold_StaysOnCallingThread() {
+        RangeScanner scanner = new RangeScanner(pool, 100);
+
+        assertEquals(users.subList(0, 100), scanner.copy(userStore, VALID_DATE, VALID_DATE.plusDays(9)));
+        assertEquals(0, pool.getPoolSize());
+    }
+
+    @Test
+    void collect_CombinesChunksInOrder() {
+        RangeScanner scanner = new RangeScanner(pool, 1);
+
+        String emails = scanner.collect(userStore, VALID_DATE, VALID_DATE.plusDays(99),
+                Collectors.mapping(User::getEmail, Collectors.joining(",")));
+
+        assertEquals(users.stream().map(User::getEmail).collect(Collectors.joining(",")), emails);
+    }
+
+    @Test
+    void sequential_ReadsWholeRange() {
+        assertEquals(users, RangeScanner.sequential().copy(userStore, VALID_DATE, VALID_DATE.plusDays(99)));
+    }
+
+    @Test
+    void constructor_NegativeThreshold() {
+        assertThrows(IllegalArgumentException.class, () -> new RangeScanner(pool, -1));
+    }
+}
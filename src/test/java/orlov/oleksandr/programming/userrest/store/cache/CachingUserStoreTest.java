@@ -0,0 +1,129 @@
+package orlov.oleksandr.programming.userrest.store.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.store.impl.InMemoryUserStore;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingUserStoreTest {
+
+    private static final String EMAIL = "test@email.com";
+
+    private Cache<String, User> cache;
+
+    private CachingUserStore userStore;
+
+    @BeforeEach
+    void setUp() {
+        cache = Caffeine.newBuilder().maximumSize(100).recordStats().build();
+        userStore = new CachingUserStore(new InMemoryUserStore(), cache);
+    }
+
+    @Test
+    void findByEmail_SecondLookupIsHit() {
+        User user = buildUser("FIRSTNAME");
+        userStore.insertIfAbsent(user);
+
+        assertEquals(Optional.of(user), userStore.findByEmail(EMAIL));
+        assertEquals(Optional.of(user), userStore.findByEmail(EMAIL));
+
+        assertEquals(1, cache.stats().missCount());
+        assertEquals(1, cache.stats().hitCount());
+    }
+
+    @Test
+    void findByEmail_MissingUserIsNotCached() {
+        assertTrue(userStore.findByEmail(EMAIL).isEmpty());
+
+        User user = buildUser("FIRSTNAME");
+        userStore.insertIfAbsent(user);
+
+        assertEquals(Optional.of(user), userStore.findByEmail(EMAIL));
+    }
+
+    @Test
+    void update_WritesThroughToCachedUser() {
+        userStore.insertIfAbsent(buildUser("FIRSTNAME"));
+        userStore.findByEmail(EMAIL);
+
+        userStore.update(EMAIL, user -> user.toBuilder().firstName("UPDATED").build());
+
+        assertEquals("UPDATED", userStore.findByEmail(EMAIL).orElseThrow().getFirstName());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void update_DoesNotCacheUncachedUser() {
+        userStore.insertIfAbsent(buildUser("FIRSTNAME"));
+
+        userStore.replace(buildUser("UPDATED"));
+
+        assertNull(cache.getIfPresent(EMAIL));
+    }
+
+    @Test
+    void remove_InvalidatesCachedUser() {
+        User user = buildUser("FIRSTNAME");
+        userStore.insertIfAbsent(user);
+        userStore.findByEmail(EMAIL);
+
+        assertTrue(userStore.remove(user));
+
+        assertTrue(userStore.findByEmail(EMAIL).isEmpty());
+    }
+
+    @Test
+    void findByEmail_LoadRacingWithUpdate_DoesNotCacheStaleUser() throws Exception {
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        InMemoryUserStore delegate = new InMemoryUserStore() {
+            @Override
+            public Optional<User> findByEmail(String email) {
+                Optional<User> user = super.findByEmail(email);
+                if (loaded.getCount() > 0) {
+                    loaded.countDown();
+                    await(updated);
+                }
+                return user;
+            }
+        };
+        userStore = new CachingUserStore(delegate, cache);
+        userStore.insertIfAbsent(buildUser("FIRSTNAME"));
+
+        CompletableFuture<Optional<User>> staleRead = CompletableFuture.supplyAsync(() -> userStore.findByEmail(EMAIL));
+        await(loaded);
+        userStore.update(EMAIL, user -> user.toBuilder().firstName("UPDATED").build());
+        updated.countDown();
+
+        assertEquals("FIRSTNAME", staleRead.get(5, TimeUnit.SECONDS).orElseThrow().getFirstName());
+        assertEquals("UPDATED", userStore.findByEmail(EMAIL).orElseThrow().getFirstName());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static User buildUser(String firstName) {
+        return User.builder()
+                .email(EMAIL)
+                .firstName(firstName)
+                .lastName("LASTNAME")
+                .birthDate(LocalDate.of(2000, 1, 1))
+                .build();
+    }
+}
@@ -0,0 +1,216 @@
+package orlov.oleksandr.programming.userrest.store.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserCursor;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryUserStoreTest {
+
+    private static final String EMAIL = "email@email.com";
+    private static final LocalDate VALID_DATE = LocalDate.of(2000, 1, 1);
+
+    private InMemoryUserStore userStore;
+
+    @BeforeEach
+    void beforeEach() {
+        userStore = new InMemoryUserStore();
+    }
+
+    @Test
+    void insertIfAbsent_SameEmailTwice() {
+        assertTrue(userStore.insertIfAbsent(buildUser(EMAIL, "FIRST")));
+        assertFalse(userStore.insertIfAbsent(buildUser(EMAIL, "SECOND")));
+
+        assertEquals("FIRST", userStore.findByEmail(EMAIL).orElseThrow().getFirstName());
+        assertEquals(1, userStore.size());
+    }
+
+    @Test
+    void insertIfAbsent_ConcurrentSameEmail_OnlyOneSucceeds() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                User user = buildUser(EMAIL, String.valueOf(i));
+                tasks.add(() -> userStore.insertIfAbsent(user));
+            }
+
+            int inserted = 0;
+            for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                if (result.get()) {
+                    inserted++;
+                }
+            }
+
+            assertEquals(1, inserted);
+            assertEquals(1, userStore.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void replace_Absent() {
+        assertTrue(userStore.replace(buildUser(EMAIL, "FIRST")).isEmpty());
+        assertTrue(userStore.findByEmail(EMAIL).isEmpty());
+    }
+
+    @Test
+    void replace_Present() {
+        User oldUser = buildUser(EMAIL, "OLD");
+        User newUser = buildUser(EMAIL, "NEW");
+        userStore.insertIfAbsent(oldUser);
+
+        assertEquals(oldUser, userStore.replace(newUser).orElseThrow());
+        assertEquals(newUser, userStore.findByEmail(EMAIL).orElseThrow());
+    }
+
+    @Test
+    void remove_OnlyEqualUser() {
+        User user = buildUser(EMAIL, "FIRST");
+        userStore.insertIfAbsent(user);
+
+        assertFalse(userStore.remove(buildUser(EMAIL, "OTHER")));
+        assertTrue(userStore.remove(buildUser(EMAIL, "FIRST")));
+        assertEquals(0, userStore.size());
+    }
+
+    @Test
+    void findByBirthDateBetween_OrderedByBirthDateThenEmail() {
+        userStore.insertIfAbsent(buildUser("b" + EMAIL, "B", VALID_DATE.plusDays(1)));
+        userStore.insertIfAbsent(buildUser("a" + EMAIL, "A", VALID_DATE.plusDays(1)));
+        userStore.insertIfAbsent(buildUser("c" + EMAIL, "C", VALID_DATE));
+        userStore.insertIfAbsent(buildUser("d" + EMAIL, "D", VALID_DATE.plusDays(2)));
+
+        List<String> firstNames = userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE.plusDays(1)).stream()
+                .map(User::getFirstName)
+                .toList();
+
+        assertEquals(List.of("C", "A", "B"), firstNames);
+    }
+
+    @Test
+    void replace_MovesUserInBirthDateIndex() {
+        userStore.insertIfAbsent(buildUser(EMAIL, "OLD", VALID_DATE));
+        userStore.replace(buildUser(EMAIL, "NEW", VALID_DATE.plusYears(1)));
+
+        assertTrue(userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE).isEmpty());
+        assertEquals("NEW", userStore.findByBirthDateBetween(VALID_DATE.plusYears(1), VALID_DATE.plusYears(1))
+                .iterator().next().getFirstName());
+        assertEquals(1L, userStore.indexSizes().get("birthDate"));
+    }
+
+    @Test
+    void remove_RemovesUserFromBirthDateIndex() {
+        User user = buildUser(EMAIL, "FIRST");
+        userStore.insertIfAbsent(user);
+        userStore.remove(user);
+
+        assertTrue(userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE).isEmpty());
+        assertEquals(0L, userStore.indexSizes().get("birthDate"));
+    }
+
+    @Test
+    void removeIf_RemovesOnlyWhenConditionAccepts() {
+        userStore.insertIfAbsent(buildUser(EMAIL, "FIRST"));
+
+        assertFalse(userStore.removeIf(EMAIL, user -> user.getFirstName().equals("OTHER")));
+        assertTrue(userStore.findByEmail(EMAIL).isPresent());
+
+        assertTrue(userStore.removeIf(EMAIL, user -> user.getFirstName().equals("FIRST")));
+        assertTrue(userStore.findByEmail(EMAIL).isEmpty());
+        assertEquals(0L, userStore.indexSizes().get("birthDate"));
+    }
+
+    @Test
+    void update_ThrowingUpdater_LeavesUserUnchanged() {
+        userStore.insertIfAbsent(buildUser(EMAIL, "FIRST"));
+
+        assertThrows(IllegalStateException.class, () -> userStore.update(EMAIL, user -> {
+            throw new IllegalStateException();
+        }));
+
+        assertEquals("FIRST", userStore.findByEmail(EMAIL).orElseThrow().getFirstName());
+    }
+
+    @Test
+    void insertIfAbsent_WithDictionary_SharesEqualFields() {
+        userStore = new InMemoryUserStore(new StringDictionary(1024));
+        userStore.insertIfAbsent(buildUser(EMAIL, new String("NAME")));
+        userStore.insertIfAbsent(buildUser("other@email.com", new String("NAME")));
+
+        assertSame(userStore.findByEmail(EMAIL).orElseThrow().getFirstName(),
+                userStore.findByEmail("other@email.com").orElseThrow().getFirstName());
+    }
+
+    @Test
+    void insertIfAbsent_WithDictionary_LeavesCallersUserUnchanged() {
+        userStore = new InMemoryUserStore(new StringDictionary(1024));
+        userStore.insertIfAbsent(buildUser("other@email.com", "NAME"));
+        String firstName = new String("NAME");
+        User user = buildUser(EMAIL, firstName);
+
+        userStore.insertIfAbsent(user);
+
+        assertSame(firstName, user.getFirstName());
+        User stored = userStore.findByEmail(EMAIL).orElseThrow();
+        assertSame(stored, userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE).iterator().next());
+    }
+
+    @Test
+    void findByBirthDateBetween_OpenEndedRange() {
+        User user = buildUser(EMAIL, "FIRST");
+        userStore.insertIfAbsent(user);
+
+        assertEquals(List.of(user), List.copyOf(userStore.findByBirthDateBetween(LocalDate.MIN, LocalDate.MAX)));
+        assertEquals(List.of(), List.copyOf(userStore.findByBirthDateBetween(LocalDate.MIN, LocalDate.MAX,
+                UserCursor.of(user))));
+        assertEquals(List.of(user), List.copyOf(userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE,
+                new UserCursor(VALID_DATE, ""))));
+    }
+
+    @Test
+    void bulkLoad_BuildsBothIndexes() {
+        UserStore.BulkLoad load = userStore.bulkLoad();
+        load.add(buildUser("c@email.com", "C", VALID_DATE));
+        load.add(buildUser("b@email.com", "B", VALID_DATE.plusDays(1)));
+        load.add(buildUser("a@email.com", "A", VALID_DATE));
+        load.add(buildUser("c@email.com", "C2", VALID_DATE));
+        load.finish();
+
+        assertEquals(3, userStore.size());
+        assertEquals("C2", userStore.findByEmail("c@email.com").orElseThrow().getFirstName());
+        assertEquals(List.of("a@email.com", "c@email.com", "b@email.com"),
+                userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE.plusDays(1)).stream()
+                        .map(User::getEmail)
+                        .toList());
+        assertEquals(3L, userStore.indexSizes().get("birthDate"));
+        assertThrows(IllegalStateException.class, userStore::bulkLoad);
+    }
+
+    private static User buildUser(String email, String firstName) {
+        return buildUser(email, firstName, VALID_DATE);
+    }
+
+    private static User buildUser(String email, String firstName, LocalDate birthDate) {
+        return User.builder()
+                .email(email)
+                .firstName(firstName)
+                .lastName("LASTNAME")
+                .birthDate(birthDate)
+                .build();
+    }
+}
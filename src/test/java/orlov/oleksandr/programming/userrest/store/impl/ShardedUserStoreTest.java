@@ -0,0 +1,134 @@
+package orlov.oleksandr.programming.userrest.store.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserCursor;
+import orlov.oleksandr.programming.userrest.store.offheap.OffHeapUserStore;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedUserStoreTest {
+
+    private static final LocalDate VALID_DATE = LocalDate.of(2000, 1, 1);
+
+    private ShardedUserStore userStore;
+
+    @BeforeEach
+    void setUp() {
+        userStore = new ShardedUserStore(8);
+    }
+
+    @Test
+    void pointOperations_UseOwningShard() {
+        assertTrue(userStore.insertIfAbsent(buildUser(1, VALID_DATE)));
+        assertFalse(userStore.insertIfAbsent(buildUser(1, VALID_DATE)));
+
+        userStore.update("user1@email.com", user -> user.toBuilder().firstName("UPDATED").build());
+
+        assertEquals("UPDATED", userStore.findByEmail("user1@email.com").orElseThrow().getFirstName());
+        assertTrue(userStore.removeIf("user1@email.com", user -> true));
+        assertEquals(0, userStore.size());
+    }
+
+    @Test
+    void findByBirthDateBetween_MergesShardsInBirthDateOrder() {
+        List<User> expected = insertUsers(200);
+
+        Collection<User> range = userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE.plusDays(9));
+
+        assertEquals(expected.subList(0, 100), new ArrayList<>(range));
+        assertEquals(expected.subList(0, 100), List.copyOf(range));
+        assertEquals(100, range.size());
+    }
+
+    @Test
+    void findByBirthDateBetween_AfterCursor_ContinuesAcrossShards() {
+        List<User> expected = insertUsers(200);
+
+        UserCursor cursor = UserCursor.of(expected.get(41));
+        List<User> rest = new ArrayList<>(userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE.plusDays(19), cursor));
+
+        assertEquals(expected.subList(42, 200), rest);
+    }
+
+    @Test
+    void findAll_And_IndexSizes_CoverAllShards() {
+        insertUsers(100);
+
+        assertEquals(100, userStore.findAll().size());
+        assertEquals(100, userStore.findAll().stream().count());
+        assertEquals(100L, userStore.indexSizes().get("email"));
+        assertEquals(100L, userStore.indexSizes().get("birthDate"));
+    }
+
+    @Test
+    void addListener_ReceivesWritesOfAllShards() {
+        AtomicInteger writes = new AtomicInteger();
+        userStore.addListener((oldUser, newUser) -> writes.incrementAndGet());
+
+        insertUsers(50);
+
+        assertEquals(50, writes.get());
+    }
+
+    @Test
+    void shardFactory_OffHeapShards() {
+        userStore = new ShardedUserStore(4, OffHeapUserStore::new);
+        List<User> expected = insertUsers(100);
+
+        assertEquals(expected.subList(0, 50), List.copyOf(userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE.plusDays(4))));
+        assertEquals(100, userStore.size());
+    }
+
+    @Test
+    void bulkLoad_RoutesUsersToOwningShards() {
+        List<User> expected = new ArrayList<>();
+        var load = userStore.bulkLoad();
+        for (int i = 0; i < 100; i++) {
+            User user = buildUser(i, VALID_DATE.plusDays(i / 10));
+            load.add(user);
+            expected.add(user);
+        }
+        load.finish();
+        expected.sort(ShardedUserStore.BIRTH_DATE_ORDER);
+
+        assertEquals(expected, List.copyOf(userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE.plusDays(9))));
+        assertEquals("FIRST7", userStore.findByEmail("user7@email.com").orElseThrow().getFirstName());
+        assertEquals(100, userStore.size());
+    }
+
+    @Test
+    void constructor_InvalidShardCount() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedUserStore(0));
+    }
+
+    /**
+     * Inserts users ten per day and returns them in (birthDate, email) order.
+     */
+    private List<User> insertUsers(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User user = buildUser(i, VALID_DATE.plusDays(i / 10));
+            userStore.insertIfAbsent(user);
+            users.add(user);
+        }
+        users.sort(ShardedUserStore.BIRTH_DATE_ORDER);
+        return users;
+    }
+
+    private static User buildUser(int i, LocalDate birthDate) {
+        return User.builder()
+                .email("user" + i + "@email.com")
+                .firstName("FIRST" + i)
+                .lastName("LASTNAME")
+                .birthDate(birthDate)
+                .build();
+    }
+}
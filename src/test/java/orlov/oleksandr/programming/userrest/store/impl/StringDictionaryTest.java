@@ -0,0 +1,46 @@
+package orlov.oleksandr.programming.userrest.store.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringDictionaryTest {
+
+    @Test
+    void intern_EqualStrings_ShareInstance() {
+        StringDictionary dictionary = new StringDictionary(16);
+        String first = new String("Main Street");
+        String second = new String("Main Street");
+
+        assertSame(first, dictionary.intern(first));
+        assertSame(first, dictionary.intern(second));
+        assertSame(first, dictionary.intern(first));
+
+        assertEquals(1, dictionary.hits());
+        assertEquals(1, dictionary.misses());
+        // String object plus its 11 Latin-1 bytes rounded up to 8
+        assertEquals(24 + 32, dictionary.savedBytes());
+    }
+
+    @Test
+    void intern_SlotCollision_NewStringTakesSlot() {
+        StringDictionary dictionary = new StringDictionary(1);
+        String first = new String("first");
+        String second = new String("second");
+
+        dictionary.intern(first);
+        dictionary.intern(second);
+
+        assertSame(second, dictionary.intern(new String("second")));
+        assertNotSame(first, dictionary.intern(new String("first")));
+        assertNull(dictionary.intern(null));
+    }
+
+    @Test
+    void constructor_RoundsCapacityUpToPowerOfTwo() {
+        assertEquals(1, new StringDictionary(1).capacity());
+        assertEquals(8, new StringDictionary(5).capacity());
+        assertEquals(8, new StringDictionary(8).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new StringDictionary(0));
+    }
+}
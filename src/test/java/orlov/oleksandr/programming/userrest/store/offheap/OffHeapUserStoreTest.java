@@ -0,0 +1,268 @@
+package orlov.oleksandr.programming.userrest.store.offheap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.model.UserCursor;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapUserStoreTest {
+
+    private static final String EMAIL = "email@email.com";
+    private static final LocalDate VALID_DATE = LocalDate.of(2000, 1, 1);
+
+    private OffHeapUserStore userStore;
+
+    @BeforeEach
+    void beforeEach() {
+        userStore = new OffHeapUserStore();
+    }
+
+    @Test
+    void insertIfAbsent_RoundTripsAllFields() {
+        User user = User.builder()
+                .email(EMAIL)
+                .firstName("Олександр")
+                .lastName("LAST")
+                .birthDate(VALID_DATE)
+                .phoneNumber("+380991234567")
+                .version(7L)
+                .build();
+
+        assertTrue(userStore.insertIfAbsent(user));
+        assertFalse(userStore.insertIfAbsent(buildUser(EMAIL, VALID_DATE)));
+
+        User found = userStore.findByEmail(EMAIL).orElseThrow();
+        assertEquals(user, found);
+        assertNull(found.getAddress());
+        assertEquals(7L, found.getVersion());
+        assertNotSame(found, userStore.findByEmail(EMAIL).orElseThrow());
+    }
+
+    @Test
+    void insertIfAbsent_WideBirthDates() {
+        assertTrue(userStore.insertIfAbsent(buildUser(EMAIL, LocalDate.MIN)));
+        assertTrue(userStore.insertIfAbsent(buildUser("other@email.com", LocalDate.MAX)));
+
+        assertEquals(LocalDate.MIN, userStore.findByEmail(EMAIL).orElseThrow().getBirthDate());
+        assertEquals(LocalDate.MAX, userStore.findByEmail("other@email.com").orElseThrow().getBirthDate());
+        assertEquals(2, userStore.findByBirthDateBetween(LocalDate.MIN, LocalDate.MAX).size());
+        assertEquals(List.of("other@email.com"), userStore.findByBirthDateBetween(VALID_DATE, LocalDate.MAX).stream()
+                .map(User::getEmail)
+                .toList());
+        assertEquals(2, userStore.findAll().size());
+    }
+
+    @Test
+    void findByEmail_StringStoredOnlyAsOtherField() {
+        userStore.insertIfAbsent(buildUser(EMAIL, VALID_DATE));
+
+        assertTrue(userStore.findByEmail("LAST").isEmpty());
+        assertTrue(userStore.findByEmail("absent@email.com").isEmpty());
+    }
+
+    @Test
+    void replace_And_Update_MoveUserInBirthDateIndex() {
+        userStore.insertIfAbsent(buildUser(EMAIL, VALID_DATE));
+
+        User oldUser = userStore.replace(buildUser(EMAIL, VALID_DATE.plusDays(10))).orElseThrow();
+        assertEquals(VALID_DATE, oldUser.getBirthDate());
+        assertTrue(userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE).isEmpty());
+
+        userStore.update(EMAIL, user -> user.toBuilder().birthDate(VALID_DATE.plusDays(20)).build());
+        assertTrue(userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE.plusDays(19)).isEmpty());
+        assertEquals(1, userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE.plusDays(20)).size());
+        assertEquals(1L, userStore.indexSizes().get("birthDate"));
+    }
+
+    @Test
+    void removeIf_FreesRowForNextUser() {
+        userStore.insertIfAbsent(buildUser(EMAIL, VALID_DATE));
+
+        assertFalse(userStore.removeIf(EMAIL, user -> false));
+        assertTrue(userStore.remove(buildUser(EMAIL, VALID_DATE)));
+        assertTrue(userStore.findByEmail(EMAIL).isEmpty());
+        assertEquals(0, userStore.size());
+        assertEquals(0L, userStore.indexSizes().get("birthDate"));
+
+        userStore.insertIfAbsent(buildUser("other@email.com", VALID_DATE));
+        assertEquals(List.of("other@email.com"), userStore.findAll().stream().map(User::getEmail).toList());
+    }
+
+    @Test
+    void findByBirthDateBetween_OrderedAcrossChunks() {
+        List<User> expected = insertUsers(1000);
+
+        Collection<User> range = userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE.plusDays(59));
+
+        assertEquals(expected.subList(0, 600), new ArrayList<>(range));
+        assertEquals(600, range.size());
+    }
+
+    @Test
+    void findByBirthDateBetween_AfterCursor() {
+        List<User> expected = insertUsers(1000);
+
+        UserCursor cursor = UserCursor.of(expected.get(341));
+        Collection<User> rest = userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE.plusDays(99), cursor);
+
+        assertEquals(expected.subList(342, 1000), new ArrayList<>(rest));
+        assertEquals(658, rest.size());
+        assertTrue(userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE.plusDays(9),
+                new UserCursor(VALID_DATE.plusDays(10), "")).isEmpty());
+    }
+
+    @Test
+    void findAll_SkipsRemovedUsers() {
+        List<User> users = insertUsers(1000);
+        List<User> kept = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            if (i % 2 == 0) {
+                userStore.remove(users.get(i));
+            } else {
+                kept.add(users.get(i));
+            }
+        }
+
+        assertEquals(500, userStore.findAll().size());
+        assertEquals(500, userStore.findAll().stream().count());
+        assertEquals(new HashSet<>(kept), new HashSet<>(userStore.findAll()));
+    }
+
+    @Test
+    void strings_AreStoredOnce() {
+        insertUsers(1000);
+
+        // 1000 emails, 1000 first names, one last name
+        assertEquals(2001L, userStore.indexSizes().get("strings"));
+        assertTrue(userStore.offHeapBytes() > 0);
+    }
+
+    @Test
+    void update_ManyTimes_ReusesStringSpace() {
+        userStore.insertIfAbsent(buildUser(EMAIL, VALID_DATE));
+        userStore.update(EMAIL, user -> renamed(user, 0));
+        long strings = userStore.indexSizes().get("strings");
+        long bytes = userStore.offHeapBytes();
+
+        for (int i = 1; i <= 300_000; i++) {
+            int version = i;
+            userStore.update(EMAIL, user -> renamed(user, version));
+        }
+
+        assertEquals(strings, userStore.indexSizes().get("strings"));
+        assertEquals(bytes, userStore.offHeapBytes());
+        assertEquals("First300000", userStore.findByEmail(EMAIL).orElseThrow().getFirstName());
+    }
+
+    @Test
+    void removeIf_ReleasesStringsStillUsedByOtherUsers() {
+        userStore.insertIfAbsent(buildUser(EMAIL, VALID_DATE));
+        userStore.insertIfAbsent(buildUser("other@email.com", VALID_DATE).toBuilder().address(EMAIL).build());
+
+        userStore.remove(userStore.findByEmail(EMAIL).orElseThrow());
+        userStore.update("other@email.com", user -> user.toBuilder().firstName("OTHER").build());
+
+        User other = userStore.findByEmail("other@email.com").orElseThrow();
+        assertEquals("LAST", other.getLastName());
+        assertEquals(EMAIL, other.getAddress());
+        assertTrue(userStore.findByEmail(EMAIL).isEmpty());
+        // other@email.com, OTHER, LAST and the address
+        assertEquals(4L, userStore.indexSizes().get("strings"));
+    }
+
+    @Test
+    void removeIf_ManyUsers_KeepsOthersFindable() {
+        insertUsers(5000);
+        for (int i = 0; i < 5000; i += 2) {
+            assertTrue(userStore.removeIf("user" + i + "@email.com", user -> true));
+        }
+
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i % 2 == 1, userStore.findByEmail("user" + i + "@email.com").isPresent());
+        }
+        insertUsers(5000);
+        assertEquals(5000, userStore.size());
+    }
+
+    @Test
+    void addListener_ReceivesOldAndNewUsers() {
+        AtomicInteger writes = new AtomicInteger();
+        userStore.addListener((oldUser, newUser) -> {
+            writes.incrementAndGet();
+            if (oldUser != null && newUser != null) {
+                assertEquals("FIRST", oldUser.getFirstName());
+                assertEquals("UPDATED", newUser.getFirstName());
+            }
+        });
+
+        userStore.insertIfAbsent(buildUser(EMAIL, VALID_DATE));
+        userStore.update(EMAIL, user -> user.toBuilder().firstName("UPDATED").build());
+        userStore.removeIf(EMAIL, user -> true);
+
+        assertEquals(3, writes.get());
+    }
+
+    /**
+     * Inserts users ten per day and returns them in (birthDate, email) order.
+     */
+    private List<User> insertUsers(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User user = buildUser("user" + i + "@email.com", VALID_DATE.plusDays(i / 10)).toBuilder()
+                    .firstName("FIRST" + i)
+                    .build();
+            userStore.insertIfAbsent(user);
+            users.add(user);
+        }
+        users.sort(Comparator.comparing(User::getBirthDate).thenComparing(User::getEmail));
+        return users;
+    }
+
+    @Test
+    void bulkLoad_BuildsBirthDateIndex() {
+        UserStore.BulkLoad load = userStore.bulkLoad();
+        load.add(buildUser("c@email.com", VALID_DATE));
+        load.add(buildUser("b@email.com", VALID_DATE.plusDays(1)));
+        load.add(buildUser("a@email.com", VALID_DATE));
+        load.add(buildUser("b@email.com", VALID_DATE.minusDays(1)));
+        load.finish();
+
+        assertEquals(3, userStore.size());
+        assertEquals(List.of("b@email.com", "a@email.com", "c@email.com"),
+                userStore.findByBirthDateBetween(VALID_DATE.minusDays(1), VALID_DATE.plusDays(1)).stream()
+                        .map(User::getEmail)
+                        .toList());
+        assertEquals(3L, userStore.indexSizes().get("birthDate"));
+
+        userStore.insertIfAbsent(buildUser("d@email.com", VALID_DATE));
+        assertEquals(3, userStore.findByBirthDateBetween(VALID_DATE, VALID_DATE).size());
+    }
+
+    private static User renamed(User user, int i) {
+        return user.toBuilder()
+                .firstName("First" + i)
+                .lastName("Last" + i)
+                .address(i + " Main Street")
+                .build();
+    }
+
+    private static User buildUser(String email, LocalDate birthDate) {
+        return User.builder()
+                .email(email)
+                .firstName("FIRST")
+                .lastName("LAST")
+                .birthDate(birthDate)
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package orlov.oleksandr.programming.userrest.store.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import orlov.oleksandr.programming.userrest.model.User;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSnapshotTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void writeAndLoad_RoundTripsAllFields() throws IOException {
+        List<User> users = List.of(
+                User.builder()
+                        .email("email@email.com")
+                        .firstName("Олександр")
+                        .lastName("LASTNAME")
+                        .birthDate(LocalDate.of(2000, 1, 1))
+                        .address("ADDRESS")
+                        .phoneNumber("PHONE")
+                        .build(),
+                User.builder()
+                        .email("min@email.com")
+                        .firstName("FIRSTNAME")
+                        .lastName("LASTNAME")
+                        .birthDate(LocalDate.MIN)
+                        .build());
+        Path file = directory.resolve("users.snapshot");
+
+        assertEquals(2, UserSnapshot.write(file, 7, users));
+
+        List<User> loaded = new ArrayList<>();
+        assertEquals(7, UserSnapshot.load(file, loaded::add));
+        assertEquals(users, loaded);
+    }
+
+    @Test
+    void load_RecordsStraddlingMappedWindows() throws IOException {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            users.add(User.builder()
+                    .email(i + "@email.com")
+                    .firstName("FIRSTNAME" + i)
+                    .lastName("LASTNAME")
+                    .birthDate(LocalDate.of(2000, 1, 1).plusDays(i))
+                    .build());
+        }
+        Path file = directory.resolve("users.snapshot");
+        UserSnapshot.write(file, 0, users);
+
+        List<User> loaded = new ArrayList<>();
+        UserSnapshot.load(file, loaded::add, 100);
+
+        assertEquals(users, loaded);
+    }
+
+    @Test
+    void load_TruncatedSnapshot() throws IOException {
+        List<User> users = List.of(User.builder()
+                .email("email@email.com")
+                .firstName("FIRSTNAME")
+                .lastName("LASTNAME")
+                .birthDate(LocalDate.of(2000, 1, 1))
+                .build());
+        Path file = directory.resolve("users.snapshot");
+        UserSnapshot.write(file, 0, users);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        var e = assertThrows(IOException.class, () -> UserSnapshot.load(file, user -> fail()));
+
+        assertTrue(e.getMessage().startsWith("Snapshot is truncated after 0 of 1 users"));
+    }
+}
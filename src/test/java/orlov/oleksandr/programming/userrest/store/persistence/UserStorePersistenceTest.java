@@ -0,0 +1,104 @@
+package orlov.oleksandr.programming.userrest.store.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.store.UserStore;
+import orlov.oleksandr.programming.userrest.store.impl.InMemoryUserStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserStorePersistenceTest {
+
+    private static final LocalDate VALID_DATE = LocalDate.of(2000, 1, 1);
+
+    @TempDir
+    private Path directory;
+
+    @ParameterizedTest
+    @EnumSource(FsyncPolicy.class)
+    void recover_ReplaysLoggedWrites(FsyncPolicy fsyncPolicy) throws IOException {
+        UserStorePersistence persistence = new UserStorePersistence(directory, fsyncPolicy, 1);
+        UserStore userStore = new DurableUserStore(new InMemoryUserStore(), persistence);
+        persistence.recover(userStore);
+
+        userStore.insertIfAbsent(buildUser("a@email.com", "A"));
+        userStore.insertIfAbsent(buildUser("b@email.com", "B"));
+        userStore.replace(buildUser("a@email.com", "A2"));
+        userStore.update("b@email.com", user -> buildUser("b@email.com", "B2"));
+        userStore.insertIfAbsent(buildUser("c@email.com", "C"));
+        userStore.remove(buildUser("c@email.com", "C"));
+        persistence.close();
+
+        UserStore recovered = recover(fsyncPolicy);
+
+        assertEquals(2, recovered.size());
+        assertEquals("A2", recovered.findByEmail("a@email.com").orElseThrow().getFirstName());
+        assertEquals("B2", recovered.findByEmail("b@email.com").orElseThrow().getFirstName());
+        assertTrue(recovered.findByEmail("c@email.com").isEmpty());
+    }
+
+    @Test
+    void recover_FromSnapshotAndNewerLog() throws IOException {
+        UserStorePersistence persistence = new UserStorePersistence(directory, FsyncPolicy.ALWAYS, 1);
+        UserStore userStore = new InMemoryUserStore();
+        persistence.recover(userStore);
+
+        userStore.insertIfAbsent(buildUser("a@email.com", "A"));
+        userStore.insertIfAbsent(buildUser("b@email.com", "B"));
+        persistence.snapshot();
+        userStore.replace(buildUser("a@email.com", "A2"));
+        userStore.remove(buildUser("b@email.com", "B"));
+        persistence.close();
+
+        assertEquals(List.of(1L), WriteAheadLog.listGenerations(directory));
+
+        UserStore recovered = recover(FsyncPolicy.ALWAYS);
+
+        assertEquals(1, recovered.size());
+        assertEquals("A2", recovered.findByEmail("a@email.com").orElseThrow().getFirstName());
+    }
+
+    @Test
+    void recover_IgnoresTornTail() throws IOException {
+        UserStorePersistence persistence = new UserStorePersistence(directory, FsyncPolicy.ALWAYS, 1);
+        UserStore userStore = new InMemoryUserStore();
+        persistence.recover(userStore);
+
+        userStore.insertIfAbsent(buildUser("a@email.com", "A"));
+        persistence.awaitDurable();
+        persistence.close();
+
+        Files.write(directory.resolve("wal-0.log"), new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        UserStore recovered = recover(FsyncPolicy.ALWAYS);
+
+        assertEquals(1, recovered.size());
+    }
+
+    private UserStore recover(FsyncPolicy fsyncPolicy) throws IOException {
+        UserStorePersistence persistence = new UserStorePersistence(directory, fsyncPolicy, 1);
+        UserStore userStore = new InMemoryUserStore();
+        persistence.recover(userStore);
+        persistence.close();
+        return userStore;
+    }
+
+    private static User buildUser(String email, String firstName) {
+        return User.builder()
+                .email(email)
+                .firstName(firstName)
+                .lastName("LASTNAME")
+                .birthDate(VALID_DATE)
+                .build();
+    }
+}
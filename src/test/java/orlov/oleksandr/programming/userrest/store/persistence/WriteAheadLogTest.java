@@ -0,0 +1,53 @@
+package orlov.oleksandr.programming.userrest.store.persistence;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    private static final byte[] PAYLOAD = {1, 2, 3};
+
+    @TempDir
+    private Path directory;
+
+    @ParameterizedTest
+    @EnumSource(FsyncPolicy.class)
+    void append_AfterFailedFlush_Throws(FsyncPolicy fsyncPolicy) throws IOException {
+        // a read-only channel fails the first flush
+        WriteAheadLog wal = WriteAheadLog.open(directory, 0, fsyncPolicy, 1,
+                segment -> FileChannel.open(Files.createFile(segment), StandardOpenOption.READ));
+        try {
+            long sequence = wal.append(WriteAheadLog.PUT, PAYLOAD);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!failed(wal) && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+
+            assertThrows(UncheckedIOException.class, () -> wal.awaitDurable(sequence));
+            assertThrows(UncheckedIOException.class, () -> wal.append(WriteAheadLog.PUT, PAYLOAD));
+        } finally {
+            wal.close();
+        }
+    }
+
+    private static boolean failed(WriteAheadLog wal) {
+        try {
+            wal.checkWritable();
+            return false;
+        } catch (UncheckedIOException e) {
+            return true;
+        }
+    }
+}
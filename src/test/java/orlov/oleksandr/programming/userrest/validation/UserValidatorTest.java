@@ -0,0 +1,87 @@
+package orlov.oleksandr.programming.userrest.validation;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import orlov.oleksandr.programming.userrest.model.User;
+import orlov.oleksandr.programming.userrest.service.impl.BirthDateCutoff;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserValidatorTest {
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("[a-z0-9._%+-]+@[a-z0-9.-]+\\.[a-z]{2,4}$");
+
+    private static ValidatorFactory validatorFactory;
+
+    private static Validator beanValidator;
+
+    private final UserValidator userValidator = new UserValidator(new BirthDateCutoff(18, Clock.systemDefaultZone()));
+
+    @BeforeAll
+    static void setUpBeanValidator() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        beanValidator = validatorFactory.getValidator();
+    }
+
+    @AfterAll
+    static void closeBeanValidator() {
+        validatorFactory.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"test@email.com", "a@b.co", "a.b_c%d+e-f@x-y.z.info", "a@b.c", "a@b.comma", "@b.com",
+            "a@.com", "a@com", "a@b.com.", "a@@b.com", "a@b@c.com", "A@b.com", "a@b.Com", "a@b_c.com", "a@b.c0m",
+            "a@-.io", "a@..io", "a@b.com\n", "a b@c.com", ""})
+    void isEmail_MatchesPattern(String email) {
+        assertEquals(EMAIL_PATTERN.matcher(email).matches(), UserValidator.isEmail(email), email);
+    }
+
+    @Test
+    void validate_ValidUser_ReturnsEmptyMap() {
+        assertSame(Map.of(), userValidator.validate(buildUser("test@email.com", "FIRSTNAME", LocalDate.of(2000, 1, 1))));
+    }
+
+    @Test
+    void validate_ReportsSameErrorsAsBeanValidation() {
+        User[] users = {
+                new User(),
+                buildUser("not an email", "", LocalDate.now()),
+                buildUser("test@email.com", null, LocalDate.now().plusDays(1)),
+                buildUser("test@email.com", "FIRSTNAME", LocalDate.now().minusDays(1)),
+        };
+
+        for (User user : users) {
+            assertEquals(beanValidationErrors(user), userValidator.validate(user), user.toString());
+        }
+    }
+
+    private static Map<String, String> beanValidationErrors(User user) {
+        Map<String, String> errors = new TreeMap<>();
+        for (ConstraintViolation<User> violation : beanValidator.validate(user)) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return errors;
+    }
+
+    private static User buildUser(String email, String firstName, LocalDate birthDate) {
+        return User.builder()
+                .email(email)
+                .firstName(firstName)
+                .lastName("LASTNAME")
+                .birthDate(birthDate)
+                .build();
+    }
+}